@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.server;
+
+import java.util.Optional;
+
+import edu.jhu.hlt.concrete.Communication;
+
+/**
+ * The outcome of annotating one item of a batch: either the annotated
+ * communication, or why it could not be annotated.
+ *
+ * @see ConcreteStanfordThriftServer#annotateBatch(java.util.List)
+ */
+public final class AnnotationResult {
+
+  private final Optional<Communication> communication;
+  private final Optional<String> error;
+
+  private AnnotationResult(Optional<Communication> communication, Optional<String> error) {
+    this.communication = communication;
+    this.error = error;
+  }
+
+  static AnnotationResult annotated(Communication c) {
+    return new AnnotationResult(Optional.of(c), Optional.empty());
+  }
+
+  static AnnotationResult failed(String error) {
+    return new AnnotationResult(Optional.empty(), Optional.of(error));
+  }
+
+  /**
+   * @return <code>true</code> if the item was annotated
+   */
+  public boolean isAnnotated() {
+    return this.communication.isPresent();
+  }
+
+  /**
+   * @return the annotated communication, if the item was annotated
+   */
+  public Optional<Communication> getCommunication() {
+    return this.communication;
+  }
+
+  /**
+   * @return why the item was not annotated, if it was not
+   */
+  public Optional<String> getError() {
+    return this.error;
+  }
+}
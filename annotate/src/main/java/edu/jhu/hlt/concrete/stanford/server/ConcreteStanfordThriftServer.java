@@ -4,13 +4,26 @@
  */
 package edu.jhu.hlt.concrete.stanford.server;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.thrift.TException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import edu.jhu.hlt.concrete.AnnotationMetadata;
 import edu.jhu.hlt.concrete.Communication;
@@ -20,6 +33,11 @@ import edu.jhu.hlt.concrete.annotate.AnnotateCommunicationService;
 import edu.jhu.hlt.concrete.metadata.AnnotationMetadataFactory;
 import edu.jhu.hlt.concrete.miscommunication.WrappedCommunication;
 import edu.jhu.hlt.concrete.services.ConcreteThriftException;
+import edu.jhu.hlt.concrete.stanford.ConcreteStanfordPreCorefAnalytic;
+import edu.jhu.hlt.concrete.stanford.DeferredCoreference;
+import edu.jhu.hlt.concrete.stanford.PooledAnalytic;
+import edu.jhu.hlt.concrete.stanford.runners.CorefArchivable;
+import edu.jhu.hlt.concrete.stanford.runners.StanfordParameterDelegate;
 
 /**
  * Implementation of concrete-stanford as a service.
@@ -32,10 +50,39 @@ public class ConcreteStanfordThriftServer implements AnnotateCommunicationServic
   private final Analytic<? extends WrappedCommunication> first;
   private final List<Analytic<? extends WrappedCommunication>> rest;
 
+  private final Optional<ExecutorService> corefExecutor;
+  private final Optional<Path> corefOutput;
+
+  private final Executor batchExecutor;
+
   /**
    * package ctor is guaranteed to get >0 analytics
    */
   ConcreteStanfordThriftServer(List<Analytic<? extends WrappedCommunication>> analytics) {
+    this(analytics, Optional.empty(), Optional.empty());
+  }
+
+  /**
+   * @param corefExecutor if present, coreference is deferred: {@link #annotate(Communication)} returns
+   * communications without it, and it runs on this executor
+   * @param corefOutput the directory to write communications with deferred coreference to,
+   * as <code>&lt;uuid&gt;.coref.comm</code>; required if <code>corefExecutor</code> is present
+   */
+  ConcreteStanfordThriftServer(List<Analytic<? extends WrappedCommunication>> analytics,
+      Optional<ExecutorService> corefExecutor, Optional<Path> corefOutput) {
+    this(analytics, corefExecutor, corefOutput, 1);
+  }
+
+  /**
+   * @param batchThreads the number of items of a batch annotated at once
+   * by {@link #annotateBatch(List)}; at most 1 annotates them in turn
+   */
+  ConcreteStanfordThriftServer(List<Analytic<? extends WrappedCommunication>> analytics,
+      Optional<ExecutorService> corefExecutor, Optional<Path> corefOutput, int batchThreads) {
+    if (corefExecutor.isPresent() && !corefOutput.isPresent())
+      throw new IllegalArgumentException("deferred coreference needs an output directory");
+    this.corefExecutor = corefExecutor;
+    this.corefOutput = corefOutput;
     this.analytics = analytics;
     final int aSize = this.analytics.size();
     if (aSize == 0)
@@ -45,6 +92,16 @@ public class ConcreteStanfordThriftServer implements AnnotateCommunicationServic
       this.rest = this.analytics.subList(1, aSize);
     else
       this.rest = ImmutableList.of();
+    this.batchExecutor = batchThreads > 1 ? newBatchExecutor(batchThreads) : MoreExecutors.directExecutor();
+  }
+
+  private static ExecutorService newBatchExecutor(int threads) {
+    final AtomicInteger n = new AtomicInteger();
+    return Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "batch-annotation-" + n.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
   }
 
   /* (non-Javadoc)
@@ -54,9 +111,9 @@ public class ConcreteStanfordThriftServer implements AnnotateCommunicationServic
   public Communication annotate(Communication original) throws ConcreteThriftException, TException {
     LOGGER.info("Received annotation request. Annotating: {} [UUID: {}]", original.getId(), original.getUuid().getUuidString());
     try {
-      WrappedCommunication intermed = this.first.annotate(original);
+      WrappedCommunication intermed = this.annotate(this.first, original);
       for (Analytic<? extends WrappedCommunication> a : this.rest) {
-        intermed = a.annotate(intermed.getRoot());
+        intermed = this.annotate(a, intermed.getRoot());
       }
       return intermed.getRoot();
     } catch (AnalyticException e) {
@@ -64,6 +121,75 @@ public class ConcreteStanfordThriftServer implements AnnotateCommunicationServic
     }
   }
 
+  /**
+   * Annotate each communication of a batch, as {@link #annotate(Communication)} would,
+   * with as many at once as this server was built for.
+   * <br>
+   * <br>
+   * An item that cannot be annotated does not fail the batch: its result holds the error.
+   * This is not yet part of the Thrift service, whose interface has no batch call.
+   *
+   * @return a result for each communication, in the order of <code>batch</code>
+   */
+  public List<AnnotationResult> annotateBatch(List<Communication> batch) {
+    LOGGER.info("Received batch annotation request of {} communications", batch.size());
+    List<CompletableFuture<AnnotationResult>> futures = new ArrayList<>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      final int item = i;
+      final Communication c = batch.get(i);
+      futures.add(CompletableFuture.supplyAsync(() -> this.annotateItem(item, c), this.batchExecutor));
+    }
+    ImmutableList.Builder<AnnotationResult> results = ImmutableList.builder();
+    for (CompletableFuture<AnnotationResult> f : futures)
+      results.add(f.join());
+    return results.build();
+  }
+
+  private AnnotationResult annotateItem(int item, Communication c) {
+    try {
+      return AnnotationResult.annotated(this.annotate(c));
+    } catch (TException | RuntimeException e) {
+      LOGGER.warn("Caught exception annotating item " + item + " of batch", e);
+      return AnnotationResult.failed(Optional.ofNullable(e.getMessage()).orElse(e.getClass().getName()));
+    }
+  }
+
+  /**
+   * Run the analytic; if it is the coreference analytic and coreference is deferred,
+   * schedule the communication with coreference to be written once it is ready.
+   * A pooled analytic is leased only until the annotators before coreference have run.
+   */
+  private WrappedCommunication annotate(Analytic<? extends WrappedCommunication> a, Communication c) throws AnalyticException {
+    if (this.corefExecutor.isPresent() && a instanceof PooledAnalytic)
+      return ((PooledAnalytic<?>) a).withAnalytic(m -> this.annotate(m, c));
+    if (!this.corefExecutor.isPresent() || !(a instanceof ConcreteStanfordPreCorefAnalytic))
+      return a.annotate(c);
+    DeferredCoreference dc = ((ConcreteStanfordPreCorefAnalytic) a).annotateDeferringCoref(c, this.corefExecutor.get());
+    dc.getCoref().ifPresent(f -> f.thenAccept(tc -> this.write(tc.getRoot()))
+        .whenComplete((v, t) -> {
+          if (t != null)
+            LOGGER.warn("Caught exception adding deferred coreference to: " + c.getId(), t);
+        }));
+    return dc.getPreCoref();
+  }
+
+  /**
+   * Write the communication to a temporary file, then move it into place,
+   * so that clients polling the directory never read a partial file.
+   */
+  private void write(Communication withCoref) {
+    CorefArchivable arch = new CorefArchivable(withCoref);
+    Path dir = this.corefOutput.get();
+    try {
+      Path tmp = Files.createTempFile(dir, ".", ".tmp");
+      Files.write(tmp, arch.getBytes());
+      Files.move(tmp, dir.resolve(arch.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+      LOGGER.debug("Wrote deferred coreference for: {} [UUID: {}]", withCoref.getId(), withCoref.getUuid().getUuidString());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   /* (non-Javadoc)
    * @see edu.jhu.hlt.concrete.annotate.AnnotateCommunicationService.Iface#getMetadata()
    */
@@ -86,5 +212,6 @@ public class ConcreteStanfordThriftServer implements AnnotateCommunicationServic
   @Override
   public void shutdown() throws TException {
     LOGGER.info("Shutdown request received");
+    StanfordParameterDelegate.logStatistics(this.analytics);
   }
 }
@@ -7,9 +7,16 @@ package edu.jhu.hlt.concrete.stanford.server;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
+import org.apache.thrift.TException;
+import org.apache.thrift.transport.TTransportException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,6 +28,7 @@ import edu.jhu.hlt.concrete.analytics.base.Analytic;
 import edu.jhu.hlt.concrete.miscommunication.WrappedCommunication;
 import edu.jhu.hlt.concrete.server.ConcreteServer;
 import edu.jhu.hlt.concrete.server.ServerException;
+import edu.jhu.hlt.concrete.stanford.ConcreteStanfordTokensSentenceAnalytic;
 import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
 import edu.jhu.hlt.concrete.stanford.runners.LanguageConverter;
 import edu.jhu.hlt.concrete.stanford.runners.StanfordParameterDelegate;
@@ -50,6 +58,50 @@ public class ConcreteStanfordThriftServerLauncher {
       description = "The port on which to listen for clients.")
   private int port = 33221;
 
+  @Parameter(names = "--skip-warmup",
+      description = "Open the port immediately, without first running a warm-up corpus through the analytics.")
+  private boolean skipWarmUp = false;
+
+  @Parameter(names = "--warmup-max-rounds",
+      description = "The maximum number of passes over the warm-up corpus.")
+  private int warmUpMaxRounds = 20;
+
+  @Parameter(names = "--warmup-max-seconds",
+      description = "Stop warming up after the pass that exceeds this many seconds.")
+  private int warmUpMaxSeconds = 300;
+
+  @Parameter(names = "--warmup-only",
+      description = "Load the models, run the warm-up, and exit without opening the port.")
+  private boolean warmUpOnly = false;
+
+  @Parameter(names = "--deferred-coref-output",
+      description = "With --defer-coref, the directory to write communications to once coreference is added, "
+          + "as <uuid>.coref.comm. Annotation requests return without coreference.")
+  private String deferredCorefOutput = null;
+
+  @Parameter(names = "--nonblocking",
+      description = "Serve with non-blocking selector threads and a bounded pool of annotation workers. "
+          + "Clients must use framed transport and the compact protocol.")
+  private boolean nonblocking = false;
+
+  @Parameter(names = "--selector-threads",
+      description = "With --nonblocking, the number of threads that accept connections and read requests.")
+  private int selectorThreads = 2;
+
+  @Parameter(names = "--workers",
+      description = "With --nonblocking, the number of requests annotated at once. "
+          + "Defaults to --pool-size, which it may not exceed.")
+  private int workers = 0;
+
+  @Parameter(names = "--worker-queue",
+      description = "With --nonblocking, the number of requests that may wait for a worker. "
+          + "Further requests are rejected, and their connections closed.")
+  private int workerQueue = 64;
+
+  @Parameter(names = "--max-frame-size",
+      description = "With --nonblocking, the largest request or response, in bytes.")
+  private int maxFrameSize = 128 * 1024 * 1024;
+
   @ParametersDelegate
   private StanfordParameterDelegate stanfordParams = new StanfordParameterDelegate();
 
@@ -60,6 +112,30 @@ public class ConcreteStanfordThriftServerLauncher {
     // TODO Auto-generated constructor stub
   }
 
+  /**
+   * Loads the analytics and, unless <code>--skip-warmup</code> is set, warms them up.
+   * Warm-up runs coreference inline, so that it is warmed up too, and nothing is
+   * written to the coreference output.
+   *
+   * @return the analytics
+   * @throws IOException if the analytics cannot be loaded, or the warm-up corpus cannot be read
+   * @throws TException if a warm-up document fails to annotate
+   */
+  List<Analytic<? extends WrappedCommunication>> loadAnalytics() throws IOException, TException {
+    final PipelineLanguage lang = this.language;
+    final boolean warmUp = !this.skipWarmUp || this.warmUpOnly;
+    // built first, as tokenizers must be
+    Optional<ConcreteStanfordTokensSentenceAnalytic> tokenizer = warmUp
+        ? this.stanfordParams.getInputTokenizer(lang) : Optional.empty();
+    List<Analytic<? extends WrappedCommunication>> analytics = this.stanfordParams.getAnalytics(lang);
+    // the port opens only after warm-up, so clients
+    // (e.g., load balancer health checks) see a ready server.
+    if (warmUp)
+      new WarmUp(new ConcreteStanfordThriftServer(analytics), lang, tokenizer,
+          this.warmUpMaxRounds, this.warmUpMaxSeconds).run();
+    return analytics;
+  }
+
   /**
    * @param args
    */
@@ -78,13 +154,48 @@ public class ConcreteStanfordThriftServerLauncher {
       // annoying Stanford junk
       SystemErrDisabler dis = new SystemErrDisabler();
       dis.disable();
-      PipelineLanguage lang = rl.language;
-      List<Analytic<? extends WrappedCommunication>> analytics =
-          rl.stanfordParams.getAnalytics(lang);
-
-      ConcreteStanfordThriftServer srv = new ConcreteStanfordThriftServer(analytics);
-      ConcreteServer.createServer(srv, rl.port);
-    } catch (ServerException | UnsupportedEncodingException e) {
+      List<Analytic<? extends WrappedCommunication>> analytics;
+      try {
+        analytics = rl.loadAnalytics();
+      } catch (TException e) {
+        logger.error("Caught exception during warm-up; not opening the port.", e);
+        return;
+      }
+      if (rl.warmUpOnly) {
+        logger.info("Warm-up complete; exiting");
+        return;
+      }
+      Optional<ExecutorService> corefExecutor = rl.stanfordParams.getDeferredCorefExecutor();
+      Optional<Path> corefOutput = Optional.empty();
+      if (corefExecutor.isPresent()) {
+        if (rl.deferredCorefOutput == null) {
+          logger.error("--defer-coref requires --deferred-coref-output");
+          corefExecutor.get().shutdown();
+          return;
+        }
+        Path out = Files.createDirectories(Paths.get(rl.deferredCorefOutput));
+        logger.info("Deferring coreference; writing it to: {}", out.toString());
+        corefOutput = Optional.of(out);
+      }
+      // each worker needs a copy of the analytics to itself
+      final int poolSize = rl.stanfordParams.getPoolSize();
+      final int workers = rl.workers > 0 ? rl.workers : poolSize;
+      if (rl.nonblocking && workers > poolSize) {
+        logger.error("--workers ({}) may not exceed --pool-size ({})", workers, poolSize);
+        return;
+      }
+      // batches are annotated as many at once as the analytics are pooled
+      ConcreteStanfordThriftServer srv = new ConcreteStanfordThriftServer(analytics, corefExecutor, corefOutput,
+          poolSize);
+      logger.info("Opening port: {}", rl.port);
+      if (rl.nonblocking) {
+        SelectorServer ss = new SelectorServer(srv, rl.port, rl.selectorThreads, workers,
+            rl.workerQueue, rl.maxFrameSize);
+        Runtime.getRuntime().addShutdownHook(new Thread(ss::stop));
+        ss.serve();
+      } else
+        ConcreteServer.createServer(srv, rl.port);
+    } catch (ServerException | TTransportException | UnsupportedEncodingException e) {
       logger.error("Caught exception while running the server.", e);
     } catch (IOException e) {
       logger.error("Error setting up analytics", e);
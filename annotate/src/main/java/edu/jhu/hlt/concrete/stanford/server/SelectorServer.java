@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.server.TServer;
+import org.apache.thrift.server.TThreadedSelectorServer;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TNonblockingServerSocket;
+import org.apache.thrift.transport.TTransportException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.jhu.hlt.concrete.annotate.AnnotateCommunicationService;
+
+/**
+ * Serves annotation requests with a non-blocking front end: selector threads
+ * accept connections and read whole requests, then hand them to a fixed pool of
+ * annotation workers, so that a slow request does not hold up reading the others.
+ * <br>
+ * <br>
+ * Requests wait for a worker in a bounded queue. When it is full, further
+ * requests are rejected and their connections closed, rather than left to time
+ * out. Clients must use {@link TFramedTransport} and {@link TCompactProtocol}.
+ */
+class SelectorServer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SelectorServer.class);
+
+  private final TNonblockingServerSocket socket;
+  private final TServer server;
+  private final ThreadPoolExecutor workers;
+
+  /**
+   * @param srv the service to run
+   * @param port the port to listen on; 0 for any free port
+   * @param selectors the number of selector threads
+   * @param workers the number of annotation workers
+   * @param queueSize the number of requests that may wait for a worker
+   * @param maxFrameBytes the largest request or response, in bytes
+   * @throws TTransportException if the port cannot be opened
+   */
+  SelectorServer(AnnotateCommunicationService.Iface srv, int port, int selectors, int workers, int queueSize,
+      int maxFrameBytes) throws TTransportException {
+    this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueSize), new WorkerThreadFactory());
+    this.socket = new TNonblockingServerSocket(port);
+    TThreadedSelectorServer.Args args = new TThreadedSelectorServer.Args(this.socket)
+        .processor(new AnnotateCommunicationService.Processor<>(srv))
+        .protocolFactory(new TCompactProtocol.Factory())
+        .transportFactory(new TFramedTransport.Factory(maxFrameBytes))
+        .selectorThreads(selectors)
+        .executorService(this.workers);
+    args.maxReadBufferBytes = maxFrameBytes;
+    this.server = new TThreadedSelectorServer(args);
+    LOGGER.info("Non-blocking server on port {}: {} selector threads; {} workers; queue of {}; frames of up to {} bytes",
+        this.socket.getPort(), selectors, workers, queueSize, maxFrameBytes);
+  }
+
+  /**
+   * @return the port the server listens on
+   */
+  int getPort() {
+    return this.socket.getPort();
+  }
+
+  /**
+   * @return the number of requests waiting for a worker
+   */
+  int getQueued() {
+    return this.workers.getQueue().size();
+  }
+
+  /**
+   * Serves requests until {@link #stop()} is called.
+   */
+  void serve() {
+    try {
+      this.server.serve();
+    } finally {
+      this.workers.shutdownNow();
+    }
+  }
+
+  void stop() {
+    this.server.stop();
+  }
+
+  private static class WorkerThreadFactory implements ThreadFactory {
+    private final AtomicInteger n = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "annotation-worker-" + this.n.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.apache.thrift.TException;
+import org.joda.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.io.ByteStreams;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.Section;
+import edu.jhu.hlt.concrete.TextSpan;
+import edu.jhu.hlt.concrete.analytics.base.Analytic;
+import edu.jhu.hlt.concrete.analytics.base.AnalyticException;
+import edu.jhu.hlt.concrete.annotate.AnnotateCommunicationService;
+import edu.jhu.hlt.concrete.metadata.AnnotationMetadataFactory;
+import edu.jhu.hlt.concrete.miscommunication.WrappedCommunication;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory;
+import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory.AnalyticUUIDGenerator;
+
+/**
+ * Drives a small bundled corpus through a service until the time per round
+ * stabilizes, so that JIT compilation, class loading, and lazily loaded
+ * resources are paid for before real requests arrive.
+ * <br>
+ * <br>
+ * The corpus for each language is at <code>warmup/&lt;language&gt;.txt</code>
+ * on the classpath; documents are separated by blank lines. A service that
+ * expects tokenized input is sent the corpus tokenized.
+ */
+public class WarmUp {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WarmUp.class);
+
+  /**
+   * Rounds within this fraction of the previous round's time count as stable.
+   */
+  static final double STABLE_DELTA = 0.1d;
+
+  /**
+   * The number of consecutive stable rounds after which warm-up stops.
+   */
+  static final int STABLE_ROUNDS = 2;
+
+  private final AnnotateCommunicationService.Iface service;
+  private final List<Communication> corpus;
+  private final int maxRounds;
+  private final long maxMillis;
+
+  /**
+   * @param service the service to warm up
+   * @param lang the language of the corpus to use
+   * @param maxRounds stop after this many rounds, even if not stable
+   * @param maxSeconds stop after the round that exceeds this many seconds, even if not stable
+   * @throws IOException if the corpus for the language cannot be read
+   */
+  public WarmUp(AnnotateCommunicationService.Iface service, PipelineLanguage lang, int maxRounds, int maxSeconds) throws IOException {
+    this(service, lang, Optional.empty(), maxRounds, maxSeconds);
+  }
+
+  /**
+   * @param service the service to warm up
+   * @param lang the language of the corpus to use
+   * @param tokenizer if present, the corpus is tokenized with it before warm-up,
+   * for a service that expects tokenized input
+   * @param maxRounds stop after this many rounds, even if not stable
+   * @param maxSeconds stop after the round that exceeds this many seconds, even if not stable
+   * @throws IOException if the corpus for the language cannot be read or tokenized
+   */
+  public WarmUp(AnnotateCommunicationService.Iface service, PipelineLanguage lang,
+      Optional<? extends Analytic<? extends WrappedCommunication>> tokenizer, int maxRounds, int maxSeconds) throws IOException {
+    this.service = service;
+    this.corpus = tokenizer.isPresent() ? tokenize(corpus(lang), tokenizer.get()) : corpus(lang);
+    this.maxRounds = maxRounds;
+    this.maxMillis = maxSeconds * 1000L;
+  }
+
+  private static List<Communication> tokenize(List<Communication> corpus, Analytic<? extends WrappedCommunication> tokenizer)
+      throws IOException {
+    List<Communication> tokenized = new ArrayList<>(corpus.size());
+    try {
+      for (Communication c : corpus)
+        tokenized.add(tokenizer.annotate(c).getRoot());
+    } catch (AnalyticException e) {
+      throw new IOException("Failed to tokenize the warm-up corpus", e);
+    }
+    return tokenized;
+  }
+
+  static List<Communication> corpus(PipelineLanguage lang) throws IOException {
+    final String resource = "warmup/" + lang.toString() + ".txt";
+    try (InputStream is = WarmUp.class.getClassLoader().getResourceAsStream(resource)) {
+      if (is == null)
+        throw new IOException("No warm-up corpus on the classpath at: " + resource);
+      AnalyticUUIDGenerator g = new AnalyticUUIDGeneratorFactory().create();
+      List<Communication> comms = new ArrayList<>();
+      for (String doc : new String(ByteStreams.toByteArray(is), StandardCharsets.UTF_8).split("\\n\\s*\\n")) {
+        final String text = doc.trim();
+        if (text.isEmpty())
+          continue;
+        Section s = new Section()
+            .setUuid(g.next())
+            .setKind("Passage")
+            .setTextSpan(new TextSpan(0, text.length()));
+        Communication c = new Communication()
+            .setId("warmup-" + comms.size())
+            .setUuid(g.next())
+            .setType("warmup")
+            .setText(text)
+            .setMetadata(AnnotationMetadataFactory.fromCurrentLocalTime("concrete-stanford warm-up"));
+        c.addToSectionList(s);
+        comms.add(c);
+      }
+      return comms;
+    }
+  }
+
+  /**
+   * Run rounds over the corpus until the time per round stabilizes, or the maximum
+   * number of rounds or seconds is reached.
+   *
+   * @return the time spent warming up
+   * @throws TException if the service fails to annotate a document
+   */
+  public Duration run() throws TException {
+    LOGGER.info("Warming up with {} documents; at most {} rounds or {} seconds", this.corpus.size(), this.maxRounds, this.maxMillis / 1000);
+    StopWatch total = new StopWatch();
+    total.start();
+    long prev = -1L;
+    int stable = 0;
+    for (int round = 1; round <= this.maxRounds; round++) {
+      final long start = System.currentTimeMillis();
+      for (Communication c : this.corpus)
+        this.service.annotate(new Communication(c));
+      final long ms = System.currentTimeMillis() - start;
+      LOGGER.info("Warm-up round {}: {} ms", round, ms);
+
+      if (prev > 0 && Math.abs(ms - prev) <= STABLE_DELTA * prev)
+        stable++;
+      else
+        stable = 0;
+      prev = ms;
+      if (stable >= STABLE_ROUNDS) {
+        LOGGER.info("Round times stabilized after {} rounds", round);
+        break;
+      }
+      if (total.getTime() >= this.maxMillis) {
+        LOGGER.warn("Round times did not stabilize within {} seconds", this.maxMillis / 1000);
+        break;
+      }
+    }
+
+    total.stop();
+    Duration d = new Duration(total.getTime());
+    LOGGER.info("Warm-up duration: {}", d.toString());
+    return d;
+  }
+}
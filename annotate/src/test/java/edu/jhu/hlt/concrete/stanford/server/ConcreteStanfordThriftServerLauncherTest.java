@@ -0,0 +1,33 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.server;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.beust.jcommander.JCommander;
+
+import edu.jhu.hlt.concrete.analytics.base.Analytic;
+import edu.jhu.hlt.concrete.miscommunication.WrappedCommunication;
+
+public class ConcreteStanfordThriftServerLauncherTest {
+
+  static ConcreteStanfordThriftServerLauncher launcher(String... args) {
+    ConcreteStanfordThriftServerLauncher rl = new ConcreteStanfordThriftServerLauncher();
+    JCommander.newBuilder().addObject(rl).build().parse(args);
+    return rl;
+  }
+
+  @Test
+  public void warmsUpTokenizedInput() throws Exception {
+    // the analytics expect tokenized input, and the warm-up corpus is text
+    List<Analytic<? extends WrappedCommunication>> analytics = launcher("--language", "en", "--tokenized-input",
+        "--profile", "fast", "--warmup-max-rounds", "1").loadAnalytics();
+    assertEquals(1, analytics.size());
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.analytics.base.Analytic;
+import edu.jhu.hlt.concrete.analytics.base.AnalyticException;
+import edu.jhu.hlt.concrete.miscommunication.WrappedCommunication;
+import edu.jhu.hlt.concrete.stanford.PooledAnalytic;
+import edu.jhu.hlt.concrete.uuid.UUIDFactory;
+
+public class ConcreteStanfordThriftServerTest {
+
+  /**
+   * Waits until <code>concurrent</code> items are being annotated at once, and
+   * fails communications whose ID starts with <code>bad</code>.
+   */
+  private static class OverlappingAnalytic implements Analytic<WrappedCommunication> {
+    private final CountDownLatch concurrent;
+
+    OverlappingAnalytic(CountDownLatch concurrent) {
+      this.concurrent = concurrent;
+    }
+
+    @Override
+    public WrappedCommunication annotate(Communication c) throws AnalyticException {
+      this.concurrent.countDown();
+      try {
+        if (!this.concurrent.await(30, TimeUnit.SECONDS))
+          throw new AnalyticException("items were not annotated concurrently");
+      } catch (InterruptedException e) {
+        throw new AnalyticException(e);
+      }
+      if (c.getId().startsWith("bad"))
+        throw new AnalyticException("cannot annotate: " + c.getId());
+      Communication annotated = new Communication(c).setText(c.getId().toUpperCase());
+      return () -> annotated;
+    }
+
+    @Override
+    public long getTimestamp() {
+      return 0L;
+    }
+
+    @Override
+    public String getToolName() {
+      return "overlapping";
+    }
+
+    @Override
+    public String getToolVersion() {
+      return "0";
+    }
+
+    @Override
+    public List<String> getToolNotes() {
+      return new ArrayList<>();
+    }
+  }
+
+  private static Communication communication(String id) {
+    return new Communication().setId(id).setUuid(UUIDFactory.newUUID()).setType("Other");
+  }
+
+  @Test(timeout = 60000)
+  public void annotatesBatchesConcurrentlyInOrder() throws Exception {
+    CountDownLatch concurrent = new CountDownLatch(2);
+    PooledAnalytic<WrappedCommunication> pool = new PooledAnalytic<>(Arrays.asList(
+        new OverlappingAnalytic(concurrent), new OverlappingAnalytic(concurrent)), 0L);
+    ConcreteStanfordThriftServer srv = new ConcreteStanfordThriftServer(ImmutableList.of(pool),
+        Optional.empty(), Optional.empty(), 2);
+
+    List<AnnotationResult> results = srv.annotateBatch(Arrays.asList(
+        communication("a"), communication("bad-b"), communication("c"), communication("d")));
+
+    assertEquals(4, results.size());
+    assertEquals("A", results.get(0).getCommunication().get().getText());
+    assertFalse(results.get(1).isAnnotated());
+    assertTrue(results.get(1).getError().get().contains("bad-b"));
+    assertEquals("C", results.get(2).getCommunication().get().getText());
+    assertEquals("D", results.get(3).getCommunication().get().getText());
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.server;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.jhu.hlt.concrete.AnnotationMetadata;
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.annotate.AnnotateCommunicationService;
+import edu.jhu.hlt.concrete.metadata.AnnotationMetadataFactory;
+import edu.jhu.hlt.concrete.uuid.UUIDFactory;
+
+public class SelectorServerTest {
+
+  /**
+   * Blocks every request until released.
+   */
+  private static class BlockingService implements AnnotateCommunicationService.Iface {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public Communication annotate(Communication original) throws TException {
+      this.started.countDown();
+      try {
+        this.release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return original;
+    }
+
+    @Override
+    public AnnotationMetadata getMetadata() throws TException {
+      return AnnotationMetadataFactory.fromCurrentLocalTime("blocking");
+    }
+
+    @Override
+    public String getDocumentation() throws TException {
+      return "Blocks until released.";
+    }
+
+    @Override
+    public void shutdown() throws TException {
+    }
+  }
+
+  private final BlockingService service = new BlockingService();
+  private final ExecutorService clients = Executors.newCachedThreadPool();
+  private SelectorServer server;
+
+  @Before
+  public void setUp() throws Exception {
+    // one worker, and room for one request to wait
+    this.server = new SelectorServer(this.service, 0, 1, 1, 1, 1024 * 1024);
+    Thread t = new Thread(this.server::serve);
+    t.setDaemon(true);
+    t.start();
+  }
+
+  @After
+  public void tearDown() {
+    this.service.release.countDown();
+    this.server.stop();
+    this.clients.shutdownNow();
+  }
+
+  private String annotate(String id) throws TException {
+    TTransport transport = new TFramedTransport(new TSocket("localhost", this.server.getPort(), 30000));
+    transport.open();
+    try {
+      Communication c = new Communication()
+          .setId(id)
+          .setUuid(UUIDFactory.newUUID())
+          .setType("Other")
+          .setMetadata(AnnotationMetadataFactory.fromCurrentLocalTime("test"));
+      return new AnnotateCommunicationService.Client(new TCompactProtocol(transport)).annotate(c).getId();
+    } finally {
+      transport.close();
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void rejectsRequestsBeyondTheQueue() throws Exception {
+    Future<String> running = this.clients.submit(() -> this.annotate("running"));
+    this.service.started.await(30, TimeUnit.SECONDS);
+    Future<String> queued = this.clients.submit(() -> this.annotate("queued"));
+    while (this.server.getQueued() < 1)
+      Thread.sleep(10);
+
+    try {
+      this.annotate("rejected");
+      throw new AssertionError("a request beyond the queue was accepted");
+    } catch (TTransportException e) {
+      // the connection was closed without a response
+    }
+
+    this.service.release.countDown();
+    assertEquals("running", running.get(30, TimeUnit.SECONDS));
+    assertEquals("queued", queued.get(30, TimeUnit.SECONDS));
+  }
+}
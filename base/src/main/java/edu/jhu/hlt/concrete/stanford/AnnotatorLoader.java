@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+
+import edu.stanford.nlp.ie.NERClassifierCombiner;
+import edu.stanford.nlp.ie.regexp.NumberSequenceClassifier;
+import edu.stanford.nlp.pipeline.Annotator;
+import edu.stanford.nlp.pipeline.DefaultPaths;
+import edu.stanford.nlp.pipeline.DependencyParseAnnotator;
+import edu.stanford.nlp.pipeline.DeterministicCorefAnnotator;
+import edu.stanford.nlp.pipeline.MorphaAnnotator;
+import edu.stanford.nlp.pipeline.NERCombinerAnnotator;
+import edu.stanford.nlp.pipeline.POSTaggerAnnotator;
+import edu.stanford.nlp.pipeline.ParserAnnotator;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.util.PropertiesUtils;
+
+/**
+ * Loads the models of a set of annotators concurrently.
+ * <br>
+ * <br>
+ * {@link StanfordCoreNLP} loads annotators one after another, while holding the
+ * lock of its static annotator pool. The annotators this class supports are
+ * instead constructed directly, each on its own thread, in the same way as
+ * the pool would construct them.
+ */
+class AnnotatorLoader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AnnotatorLoader.class);
+
+  private AnnotatorLoader() {
+
+  }
+
+  /**
+   * @param names the annotators to load
+   * @param props the pipeline {@link Properties}
+   * @param fromPool annotators to fetch from {@link StanfordCoreNLP}'s static pool, rather than construct
+   * directly, because other annotators (e.g. <code>dcoref</code>) also fetch them from the pool
+   * @param stats a {@link RunStatistics} to record per-annotator load times, in milliseconds, in
+   * @return the loaded annotators, in the order of <code>names</code>
+   */
+  static ImmutableMap<String, Annotator> load(List<String> names, Properties props, List<String> fromPool, RunStatistics stats) {
+    final int threads = Math.max(1, Math.min(names.size(),
+        PropertiesUtils.getInt(props, ConcreteStanfordPreCorefAnalytic.MODEL_LOADING_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors())));
+    LOGGER.info("Loading annotators {} with {} threads", names, threads);
+    StopWatch sw = new StopWatch();
+    sw.start();
+    ExecutorService exec = Executors.newFixedThreadPool(threads);
+    try {
+      Map<String, Future<Annotator>> futures = new LinkedHashMap<>();
+      for (String name : names) {
+        final Callable<Annotator> c = fromPool.contains(name)
+            ? () -> StanfordCoreNLP.getExistingAnnotator(name)
+            : () -> create(name, props);
+        futures.put(name, exec.submit(() -> timed(name, c, stats)));
+      }
+
+      ImmutableMap.Builder<String, Annotator> b = ImmutableMap.builder();
+      for (Map.Entry<String, Future<Annotator>> e : futures.entrySet())
+        b.put(e.getKey(), e.getValue().get());
+      sw.stop();
+      LOGGER.info("Loaded annotators {} in {} ms", names, sw.getTime());
+      return b.build();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while loading annotators", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      throw new IllegalStateException("Failed to load annotators", cause);
+    } finally {
+      exec.shutdownNow();
+    }
+  }
+
+  private static Annotator timed(String name, Callable<Annotator> c, RunStatistics stats) throws Exception {
+    StopWatch sw = new StopWatch();
+    sw.start();
+    Annotator a = c.call();
+    sw.stop();
+    if (a == null)
+      throw new IllegalStateException("Annotator " + name + " could not be loaded");
+    LOGGER.info("Loaded annotator {} in {} ms", name, sw.getTime());
+    stats.add("load." + name + ".ms", sw.getTime());
+    return a;
+  }
+
+  /**
+   * Mirrors the construction of the annotators in CoreNLP's default annotator pool.
+   */
+  private static Annotator create(String name, Properties props) {
+    switch (name) {
+    case "pos":
+      return new POSTaggerAnnotator("pos", props);
+    case "lemma":
+      return new MorphaAnnotator(false);
+    case "ner":
+      return ner(props);
+    case "parse":
+      return new ParserAnnotator("parse", props);
+    case "depparse":
+      return new DependencyParseAnnotator(PropertiesUtils.extractPrefixedProperties(props, "depparse."));
+    case "dcoref":
+      return new DeterministicCorefAnnotator(props);
+    default:
+      throw new IllegalArgumentException("Annotator " + name + " cannot be loaded directly");
+    }
+  }
+
+  private static Annotator ner(Properties props) {
+    final String modelNames = props.getProperty("ner.model", DefaultPaths.DEFAULT_NER_THREECLASS_MODEL
+        + "," + DefaultPaths.DEFAULT_NER_MUC_MODEL + "," + DefaultPaths.DEFAULT_NER_CONLL_MODEL);
+    List<String> models = new ArrayList<>();
+    for (String m : Arrays.asList(modelNames.split(",")))
+      if (!m.trim().isEmpty())
+        models.add(m.trim());
+    if (models.isEmpty())
+      throw new IllegalArgumentException("No NER models specified in ner.model");
+
+    final boolean applyNumeric = PropertiesUtils.getBool(props, NERClassifierCombiner.APPLY_NUMERIC_CLASSIFIERS_PROPERTY,
+        NERClassifierCombiner.APPLY_NUMERIC_CLASSIFIERS_DEFAULT);
+    final boolean useSUTime = PropertiesUtils.getBool(props, NumberSequenceClassifier.USE_SUTIME_PROPERTY,
+        NumberSequenceClassifier.USE_SUTIME_DEFAULT);
+    try {
+      return new NERCombinerAnnotator(new NERClassifierCombiner(applyNumeric, useSUTime, props,
+          models.toArray(new String[models.size()])), false);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -5,16 +5,19 @@
 package edu.jhu.hlt.concrete.stanford;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import edu.jhu.hlt.concrete.Communication;
 import edu.jhu.hlt.concrete.Section;
@@ -25,35 +28,98 @@ import edu.jhu.hlt.concrete.analytics.base.TokenizationedCommunicationAnalytic;
 import edu.jhu.hlt.concrete.miscommunication.MiscommunicationException;
 import edu.jhu.hlt.concrete.miscommunication.tokenized.CachedTokenizationCommunication;
 import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
+import edu.jhu.hlt.concrete.stanford.languages.DependencyRepresentation;
+import edu.jhu.hlt.concrete.stanford.languages.TokenVerification;
 import edu.jhu.hlt.concrete.util.ProjectConstants;
 import edu.jhu.hlt.concrete.util.Timing;
 import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory;
 import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory.AnalyticUUIDGenerator;
+import edu.stanford.nlp.ling.CoreAnnotations.CharacterOffsetBeginAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.CharacterOffsetEndAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.TextAnnotation;
 import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.Annotator;
 import edu.stanford.nlp.pipeline.ParserAnnotatorUtils;
 import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations.BasicDependenciesAnnotation;
+import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation;
 import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations.CollapsedDependenciesAnnotation;
+import edu.stanford.nlp.semgraph.SemanticGraphFactory;
 import edu.stanford.nlp.trees.GrammaticalStructure;
 import edu.stanford.nlp.trees.GrammaticalStructureFactory;
 import edu.stanford.nlp.trees.HeadFinder;
 import edu.stanford.nlp.trees.Tree;
 import edu.stanford.nlp.trees.TreeCoreAnnotations.TreeAnnotation;
 import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.PropertiesUtils;
 
 /**
- *
+ * Runs the annotators that follow tokenization, and optionally coreference.
+ * <br>
+ * <br>
+ * With coreference, build this analytic after any tokenization analytic
+ * ({@link ConcreteStanfordTokensSentenceAnalytic}), and not concurrently with one.
+ * Each {@link StanfordCoreNLP} registers its annotator factories in CoreNLP's
+ * static pool, replacing those registered with different properties; <code>dcoref</code>
+ * fetches its parser from that pool, so the last registration must be this analytic's.
  */
-public class ConcreteStanfordPreCorefAnalytic implements TokenizationedCommunicationAnalytic<TokenizedCommunication> {
+public class ConcreteStanfordPreCorefAnalytic implements TokenizationedCommunicationAnalytic<TokenizedCommunication>, StatisticsReporting {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ConcreteStanfordPreCorefAnalytic.class);
 
+  /**
+   * The property that sets the number of threads used to load models.
+   * <code>1</code> loads them one after another. Defaults to the number of processors.
+   */
+  public static final String MODEL_LOADING_THREADS_PROPERTY = "concrete.models.threads";
+
+  /**
+   * The property that sets whether each coreference mention's tokens are checked
+   * to be in its tokenization. Defaults to <code>true</code>; <code>false</code>
+   * trusts CoreNLP's mention offsets.
+   */
+  public static final String COREF_VALIDATION_PROPERTY = "concrete.coref.validate";
+
+  /**
+   * The property that sets whether each annotated sentence is checked to cover the
+   * span of the sentence it is merged into. Defaults to <code>true</code>.
+   */
+  public static final String SENTENCE_VALIDATION_PROPERTY = "concrete.sentences.validate";
+
+  /**
+   * The property that sets the number of sentences in each window that coreference
+   * runs on. Unset, or <code>&lt;= 0</code>, runs it on whole documents.
+   */
+  public static final String COREF_WINDOW_PROPERTY = WindowedCoref.WINDOW_PROPERTY;
+
+  /**
+   * The property that sets the number of sentences shared by consecutive coreference windows.
+   * Defaults to 5, or half the window if that is smaller.
+   */
+  public static final String COREF_OVERLAP_PROPERTY = WindowedCoref.OVERLAP_PROPERTY;
+
+  private static final String BUILD_GRAPHS_PROPERTY = "parse.buildgraphs";
+
+  /**
+   * Annotators that keep per-document state, and so are not shared by replicas.
+   */
+  private static final ImmutableList<String> UNSHARED_ANNOTATORS = ImmutableList.of("dcoref");
+
   private final HeadFinder hf;
   private final Optional<GrammaticalStructureFactory> gramFactory;
   private final ImmutableList<String> postTokenAnnotators;
+  private final ImmutableMap<String, Annotator> annotators;
   private final boolean isCorefEnabled;
+  private final RunStatistics stats;
+  private final Optional<ParseAdmission> parseAdmission;
+  private final boolean validateCoref;
+  private final Optional<WindowedCoref> windowedCoref;
+  private final Set<DependencyRepresentation> dependencies;
+  private final boolean verifySentences;
+  private final TokenVerification tokenVerification;
+  private final Properties props;
 
   /**
    *
@@ -61,12 +127,93 @@ public class ConcreteStanfordPreCorefAnalytic implements TokenizationedCommunica
   public ConcreteStanfordPreCorefAnalytic(Properties props, HeadFinder hf,
       Optional<GrammaticalStructureFactory> gramFactory,
       ImmutableList<String> postTokenAnnotators, boolean isCorefEnabled) {
+    this.stats = new RunStatistics();
     this.hf = hf;
     this.gramFactory = gramFactory;
     this.postTokenAnnotators = postTokenAnnotators;
-    // needed to avoid NPE when using existingAnnotator.
-    new StanfordCoreNLP(props);
+    this.dependencies = DependencyRepresentation.fromProperties(props);
+    // the parser builds all three dependency graphs of each tree unless told
+    // not to. dcoref needs them; otherwise, the selected graphs are built
+    // once, below, by fillInParseAnnotations.
+    if (gramFactory.isPresent() && postTokenAnnotators.contains("parse")
+        && !postTokenAnnotators.contains("dcoref") && !props.containsKey(BUILD_GRAPHS_PROPERTY)) {
+      Properties copy = new Properties();
+      copy.putAll(props);
+      copy.setProperty(BUILD_GRAPHS_PROPERTY, Boolean.FALSE.toString());
+      props = copy;
+    }
+    // dcoref fetches the parser from CoreNLP's static pool to reparse
+    // some mentions. Register the pool's factories with these properties,
+    // without loading any models, and share the pool's parser. Only this
+    // registration is serial; the models load concurrently, below.
+    List<String> fromPool = new ArrayList<>();
+    if (postTokenAnnotators.contains("dcoref")) {
+      Properties poolProps = new Properties();
+      poolProps.putAll(props);
+      poolProps.setProperty("annotators", "tokenize");
+      new StanfordCoreNLP(poolProps);
+      fromPool.add("parse");
+    }
+    this.annotators = AnnotatorLoader.load(postTokenAnnotators, props, fromPool, this.stats);
     this.isCorefEnabled = isCorefEnabled;
+    this.parseAdmission = postTokenAnnotators.contains("parse")
+        ? ParseAdmission.fromProperties(props, this.stats) : Optional.empty();
+    this.validateCoref = PropertiesUtils.getBool(props, COREF_VALIDATION_PROPERTY, true);
+    this.verifySentences = PropertiesUtils.getBool(props, SENTENCE_VALIDATION_PROPERTY, true);
+    this.tokenVerification = TokenVerification.fromProperties(props);
+    this.windowedCoref = postTokenAnnotators.contains("dcoref")
+        ? WindowedCoref.fromProperties(props, this.stats) : Optional.empty();
+    this.props = props;
+  }
+
+  /**
+   * Builds a replica of <code>other</code> that shares its models and statistics, and
+   * loads its own copy of the annotators that are not thread-safe.
+   */
+  private ConcreteStanfordPreCorefAnalytic(ConcreteStanfordPreCorefAnalytic other) {
+    this.hf = other.hf;
+    this.gramFactory = other.gramFactory;
+    this.postTokenAnnotators = other.postTokenAnnotators;
+    this.dependencies = other.dependencies;
+    this.isCorefEnabled = other.isCorefEnabled;
+    this.stats = other.stats;
+    this.parseAdmission = other.parseAdmission;
+    this.validateCoref = other.validateCoref;
+    this.verifySentences = other.verifySentences;
+    this.tokenVerification = other.tokenVerification;
+    this.windowedCoref = other.windowedCoref;
+    this.props = other.props;
+
+    List<String> unshared = new ArrayList<>();
+    for (String name : other.postTokenAnnotators)
+      if (UNSHARED_ANNOTATORS.contains(name))
+        unshared.add(name);
+    ImmutableMap<String, Annotator> loaded = unshared.isEmpty() ? ImmutableMap.of()
+        : AnnotatorLoader.load(unshared, this.props, new ArrayList<>(), this.stats);
+    ImmutableMap.Builder<String, Annotator> b = ImmutableMap.builder();
+    other.annotators.forEach((name, a) -> b.put(name, loaded.containsKey(name) ? loaded.get(name) : a));
+    this.annotators = b.build();
+  }
+
+  /**
+   * The part of speech tagger, named entity recognizer, parsers and their models
+   * are shared with this analytic, as CoreNLP allows them to be used from several
+   * threads at once. Coreference, which keeps per-document state, is loaded anew.
+   *
+   * @return an analytic that can annotate at the same time as this one, on another thread
+   * @see PooledAnalytic
+   */
+  public ConcreteStanfordPreCorefAnalytic replicate() {
+    return new ConcreteStanfordPreCorefAnalytic(this);
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see edu.jhu.hlt.concrete.stanford.StatisticsReporting#getStatistics()
+   */
+  @Override
+  public RunStatistics getStatistics() {
+    return this.stats;
   }
 
   /*
@@ -109,21 +256,60 @@ public class ConcreteStanfordPreCorefAnalytic implements TokenizationedCommunica
     return new ArrayList<>();
   }
 
-  private static List<Sentence> annotationToSentenceList(Annotation anno, HeadFinder hf, final List<Sentence> origSentListRef, final AnalyticUUIDGenerator gen)
-      throws AnalyticException {
-    List<Sentence> slist = new ArrayList<>();
+  /**
+   * Converts each annotated sentence into the sentence it was built from, in place.
+   * The annotation's sentences were built, in order, from <code>sentences</code>,
+   * so they are merged by position.
+   *
+   * @param sentences the sentences of the communication, in order; see {@link #sentences(Communication)}
+   * @param verify <code>true</code> to check that each annotated sentence covers the span of its sentence
+   * @throws AnalyticException if the number of sentences differs, or a span does not match
+   */
+  private static void mergeSentences(Annotation anno, HeadFinder hf, final List<Sentence> sentences,
+      final ConversionContext ctx, final boolean verify) throws AnalyticException {
     List<CoreMap> cmList = anno.get(SentencesAnnotation.class);
+    if (verify)
+      verifyAlignment(cmList, sentences);
+    else if (cmList.size() != sentences.size())
+      throw new AnalyticException("Annotated " + cmList.size() + " sentences, but the communication has " + sentences.size());
     final int cmListSize = cmList.size();
     for (int i = 0; i < cmListSize; i++) {
-      CoreMap cm = cmList.get(i);
-      Sentence orig = origSentListRef.get(i);
+      Sentence orig = sentences.get(i);
       final int sentOff = orig.getTextSpan().getStart();
-      Sentence merged = new PreNERCoreMapWrapper(cm, hf, gen)
-          .toSentence(sentOff, orig);
-      slist.add(merged);
+      new PreNERCoreMapWrapper(cmList.get(i), hf, ctx).toSentence(sentOff, orig);
     }
+  }
+
+  /**
+   * @return the sentences of every section of the communication, in order
+   */
+  static List<Sentence> sentences(Communication root) {
+    List<Sentence> sentences = new ArrayList<>();
+    for (Section sect : root.getSectionList())
+      if (sect.isSetSentenceList())
+        sentences.addAll(sect.getSentenceList());
+    return sentences;
+  }
 
-    return slist;
+  /**
+   * @param cmList annotated sentences
+   * @param sentences the sentences they were built from
+   * @throws AnalyticException if there are not as many of each, or an annotated sentence's
+   * character offsets are not those of the sentence at the same position
+   */
+  static void verifyAlignment(List<CoreMap> cmList, List<Sentence> sentences) throws AnalyticException {
+    final int n = sentences.size();
+    if (cmList.size() != n)
+      throw new AnalyticException("Annotated " + cmList.size() + " sentences, but the communication has " + n);
+    for (int i = 0; i < n; i++) {
+      CoreMap cm = cmList.get(i);
+      TextSpan ts = sentences.get(i).getTextSpan();
+      Integer begin = cm.get(CharacterOffsetBeginAnnotation.class);
+      Integer end = cm.get(CharacterOffsetEndAnnotation.class);
+      if (begin == null || end == null || begin != ts.getStart() || end != ts.getEnding())
+        throw new AnalyticException("Annotated sentence " + i + " [" + begin + ", " + end + ") does not match the span of sentence "
+            + sentences.get(i).getUuid().getUuidString() + ": " + ts.toString());
+    }
   }
 
   /*
@@ -135,6 +321,91 @@ public class ConcreteStanfordPreCorefAnalytic implements TokenizationedCommunica
   @Override
   public TokenizedCommunication annotate(TokenizedCommunication arg0) throws AnalyticException {
     final Communication root = new Communication(arg0.getRoot());
+    Annotation anno = this.annotate(root, false);
+    if (this.isCorefEnabled)
+      return this.addCoreference(root, anno);
+    else
+      return wrap(root);
+  }
+
+  /**
+   * Annotate the communication, but defer coreference: the communication is returned
+   * as soon as the other annotators have run, and coreference runs on the executor,
+   * on a copy of it.
+   *
+   * @param arg0 the communication to annotate
+   * @param executor the executor to run coreference on, e.g. one from {@link DeferredCoreference#newExecutor(int)}.
+   * <code>dcoref</code> is not safe to run on more than one thread, so it should run tasks one at a time.
+   * @return the communication without coreference, and, if coreference is enabled, a future for it with coreference
+   * @throws AnalyticException on failure to run the annotators that are not deferred
+   */
+  public DeferredCoreference annotateDeferringCoref(TokenizedCommunication arg0, Executor executor) throws AnalyticException {
+    final Communication root = new Communication(arg0.getRoot());
+    final Optional<Annotator> dcoref = this.isCorefEnabled
+        ? Optional.ofNullable(this.annotators.get("dcoref")) : Optional.empty();
+    Annotation anno = this.annotate(root, dcoref.isPresent());
+    if (!dcoref.isPresent()) {
+      TokenizedCommunication tc = this.isCorefEnabled ? this.addCoreference(root, anno) : wrap(root);
+      return new DeferredCoreference(tc, Optional.empty());
+    }
+
+    // the caller owns the returned communication; coreference is added to a copy.
+    final Communication copy = new Communication(root);
+    this.stats.increment("coref.deferred");
+    CompletableFuture<TokenizedCommunication> coref = CompletableFuture.supplyAsync(() -> {
+      this.runCoref(dcoref.get(), anno);
+      try {
+        return this.addCoreference(copy, anno);
+      } catch (AnalyticException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+    return new DeferredCoreference(wrap(root), Optional.of(coref));
+  }
+
+  /**
+   * @see #annotateDeferringCoref(TokenizedCommunication, Executor)
+   */
+  public DeferredCoreference annotateDeferringCoref(Communication arg0, Executor executor) throws AnalyticException {
+    try {
+      return this.annotateDeferringCoref(new CachedTokenizationCommunication(arg0), executor);
+    } catch (MiscommunicationException e) {
+      throw new AnalyticException("Communication did not have required Tokenizations.", e);
+    }
+  }
+
+  private static TokenizedCommunication wrap(Communication root) throws AnalyticException {
+    try {
+      return new CachedTokenizationCommunication(root);
+    } catch (MiscommunicationException e) {
+      throw new AnalyticException(e);
+    }
+  }
+
+  private TokenizedCommunication addCoreference(Communication root, Annotation anno) throws AnalyticException {
+    try {
+      CorefManager coref = new CorefManager(new CachedTokenizationCommunication(root), anno, this.validateCoref, this.stats);
+      return coref.addCoreference();
+    } catch (MiscommunicationException e) {
+      throw new AnalyticException(e);
+    }
+  }
+
+  private void runCoref(Annotator dcoref, Annotation anno) {
+    final long start = System.currentTimeMillis();
+    if (this.windowedCoref.isPresent())
+      this.windowedCoref.get().annotate(dcoref, anno);
+    else
+      dcoref.annotate(anno);
+    this.stats.add("coref.annotate.ms", System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Run the annotators, and set the resulting tokenizations on the sentences of <code>root</code>.
+   *
+   * @return the annotation of the communication
+   */
+  private Annotation annotate(Communication root, boolean skipCoref) throws AnalyticException {
     if (!root.isSetText())
       throw new AnalyticException("communication.text must be set to run this analytic.");
     AnalyticUUIDGeneratorFactory f = new AnalyticUUIDGeneratorFactory(root);
@@ -142,7 +413,8 @@ public class ConcreteStanfordPreCorefAnalytic implements TokenizationedCommunica
     final List<Section> sectList = root.getSectionList();
     final String commText = root.getText();
 
-    List<CoreMap> allCoreMaps = new ArrayList<>();
+    final List<Sentence> sentences = sentences(root);
+    List<CoreMap> allCoreMaps = new ArrayList<>(sentences.size());
     // String noMarkup = MarkupRewriter.removeMarkup(commText);
     String noMarkup = commText;
     sectList.forEach(sect -> {
@@ -150,7 +422,7 @@ public class ConcreteStanfordPreCorefAnalytic implements TokenizationedCommunica
       allCoreMaps.addAll(cmList);
     });
 
-    allCoreMaps.forEach(cm -> LOGGER.trace("Got CoreMap pre-coref: {}", cm.toShorterString(new String[0])));
+    traceCoreMaps("Got CoreMap pre-coref: {}", allCoreMaps);
     Annotation anno = new Annotation(allCoreMaps);
     anno.set(TextAnnotation.class, noMarkup);
 
@@ -158,55 +430,58 @@ public class ConcreteStanfordPreCorefAnalytic implements TokenizationedCommunica
     // before dcoref annotator is called. TB investigated further.
     for (String annotator : this.postTokenAnnotators) {
       LOGGER.debug("Running annotator: {}", annotator);
-      (StanfordCoreNLP.getExistingAnnotator(annotator)).annotate(anno);
+      final Annotator a = this.annotators.get(annotator);
+      if (annotator.equals("dcoref")) {
+        if (!skipCoref)
+          this.runCoref(a, anno);
+      } else {
+        a.annotate(anno);
+      }
+      if (annotator.equals("parse"))
+        this.parseAdmission.ifPresent(pa -> pa.apply(anno));
     }
 
-    anno.get(SentencesAnnotation.class).forEach(cm -> LOGGER.trace("Got CoreMaps post-coref: {}", cm.toShorterString(new String[0])));
+    traceCoreMaps("Got CoreMaps post-coref: {}", anno.get(SentencesAnnotation.class));
     // TODO: not sure if this is necessary - found it in the old code.
-    anno.get(SentencesAnnotation.class).stream().filter(cm -> cm.containsKey(TreeAnnotation.class)).forEach(cm -> {
+    // sentences given a fallback tree must keep their (empty or depparse) dependencies.
+    anno.get(SentencesAnnotation.class).stream()
+        .filter(cm -> cm.containsKey(TreeAnnotation.class) && !cm.containsKey(ParseAdmission.ParseFallbackAnnotation.class))
+        .forEach(cm -> {
       Tree tree = cm.get(TreeAnnotation.class);
       List<Tree> treeList = new ArrayList<>();
       treeList.add(tree);
-      this.gramFactory.ifPresent(k ->
-        ParserAnnotatorUtils.fillInParseAnnotations(false, true, k, cm, treeList.get(0), GrammaticalStructure.Extras.NONE));
+      this.gramFactory.ifPresent(k -> this.fillInParseAnnotations(k, cm, treeList.get(0)));
     });
 
-    anno.get(SentencesAnnotation.class).forEach(cm -> LOGGER.trace("Got CoreMap post-fill-in: {}", cm.toShorterString(new String[0])));
-    List<Sentence> postSentences = annotationToSentenceList(anno, hf, arg0.getSentences(), g);
-    postSentences.forEach(st -> LOGGER.trace("Got pre-coref sentence: {}", st.toString()));
-    Map<TextSpan, Sentence> tsToSentenceMap = new HashMap<>();
-    postSentences.forEach(st -> tsToSentenceMap.put(st.getTextSpan(), st));
-    tsToSentenceMap.keySet().forEach(k -> LOGGER.trace("Got TextSpan key: {}", k.toString()));
+    traceCoreMaps("Got CoreMap post-fill-in: {}", anno.get(SentencesAnnotation.class));
+    mergeSentences(anno, hf, sentences, new ConversionContext(g, this.dependencies, this.tokenVerification), this.verifySentences);
 
-    sectList.forEach(sect -> {
-      List<Sentence> sentList = sect.getSentenceList();
-      sentList.forEach(st -> {
-        TextSpan ts = st.getTextSpan();
-        LOGGER.debug("Trying to find span: {}", ts.toString());
-        if (tsToSentenceMap.containsKey(ts)) {
-          Sentence newSent = tsToSentenceMap.get(ts);
-          st.setTokenization(newSent.getTokenization());
-        } else {
-          throw new RuntimeException("Didn't find sentence in the new sentences. Old sentence UUID: " + st.getUuid().getUuidString());
-        }
-      });
-    });
+    return anno;
+  }
 
-    if (this.isCorefEnabled) {
-      try {
-        CorefManager coref = new CorefManager(new CachedTokenizationCommunication(root), anno);
-        TokenizedCommunication tcWithCoref = coref.addCoreference();
-        return tcWithCoref;
-      } catch (MiscommunicationException e) {
-        throw new AnalyticException(e);
-      }
-    } else {
-      try {
-        return new CachedTokenizationCommunication(root);
-      } catch (MiscommunicationException e) {
-        throw new AnalyticException(e);
-      }
-    }
+  /**
+   * Rendering a sentence is costly, so sentences are only rendered if they will be logged.
+   */
+  private static void traceCoreMaps(String format, List<CoreMap> cms) {
+    if (LOGGER.isTraceEnabled())
+      cms.forEach(cm -> LOGGER.trace(format, cm.toShorterString(new String[0])));
+  }
+
+  /**
+   * As {@link ParserAnnotatorUtils#fillInParseAnnotations(boolean, boolean, GrammaticalStructureFactory, CoreMap, Tree, GrammaticalStructure.Extras)},
+   * but builds only the selected dependency graphs.
+   */
+  private void fillInParseAnnotations(GrammaticalStructureFactory gsf, CoreMap cm, Tree tree) {
+    ParserAnnotatorUtils.fillInParseAnnotations(false, false, gsf, cm, tree, GrammaticalStructure.Extras.NONE);
+    if (this.dependencies.contains(DependencyRepresentation.BASIC))
+      cm.set(BasicDependenciesAnnotation.class,
+          SemanticGraphFactory.generateUncollapsedDependencies(gsf.newGrammaticalStructure(tree), GrammaticalStructure.Extras.NONE));
+    if (this.dependencies.contains(DependencyRepresentation.COLLAPSED))
+      cm.set(CollapsedDependenciesAnnotation.class,
+          SemanticGraphFactory.generateCollapsedDependencies(gsf.newGrammaticalStructure(tree), GrammaticalStructure.Extras.NONE));
+    if (this.dependencies.contains(DependencyRepresentation.COLLAPSED_CC))
+      cm.set(CollapsedCCProcessedDependenciesAnnotation.class,
+          SemanticGraphFactory.generateCCProcessedDependencies(gsf.newGrammaticalStructure(tree), GrammaticalStructure.Extras.NONE));
   }
 
   /**
@@ -9,7 +9,6 @@ import java.util.List;
 import java.util.Properties;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.StringEscapeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,10 +28,10 @@ import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory;
 import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory.AnalyticUUIDGenerator;
 import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.TokensAnnotation;
-import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.pipeline.Annotation;
 import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.PropertiesUtils;
 
 /**
  *
@@ -41,12 +40,30 @@ public class ConcreteStanfordTokensSentenceAnalytic implements SectionedCommunic
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ConcreteStanfordTokensSentenceAnalytic.class);
 
+  /**
+   * The property that lists the kinds of section not to tokenize, comma-separated.
+   * Sections of these kinds are dropped from the output, as blank sections are.
+   */
+  public static final String SKIP_SECTION_KINDS_PROPERTY = SectionFilter.SKIP_KINDS_PROPERTY;
+
+  /**
+   * The property that sets the number of characters of a section annotated at
+   * once. Longer sections are split into chunks at blank lines, where possible,
+   * so that the tokens of only one chunk are held at a time. Unset, or 0, annotates
+   * each section whole.
+   */
+  public static final String CHUNK_SIZE_PROPERTY = "concrete.tokenization.chunk";
+
   private final StanfordCoreNLP pipeline;
+  private final SectionFilter filter;
+  private final int chunkSize;
   /**
    *
    */
   public ConcreteStanfordTokensSentenceAnalytic(Properties props) {
     this.pipeline = new StanfordCoreNLP(props);
+    this.filter = SectionFilter.fromProperties(props);
+    this.chunkSize = PropertiesUtils.getInt(props, CHUNK_SIZE_PROPERTY, 0);
   }
 
   /* (non-Javadoc)
@@ -83,12 +100,12 @@ public class ConcreteStanfordTokensSentenceAnalytic implements SectionedCommunic
     return notes;
   }
 
-  private static List<Sentence> annotationToSentenceList(Annotation anno, int cOffset, final AnalyticUUIDGenerator gen) {
+  private static List<Sentence> annotationToSentenceList(Annotation anno, int cOffset, final ConversionContext ctx) {
     List<Sentence> slist = new ArrayList<>();
     List<CoreMap> cml = anno.get(SentencesAnnotation.class);
     for (CoreMap cm : cml) {
       try {
-        Sentence st = new CoreMapWrapper(cm, gen).toSentence(cOffset);
+        Sentence st = new CoreMapWrapper(cm, ctx).toSentence(cOffset);
         slist.add(st);
       } catch (AnalyticException e) {
         throw new RuntimeException(e);
@@ -98,6 +115,73 @@ public class ConcreteStanfordTokensSentenceAnalytic implements SectionedCommunic
     return slist;
   }
 
+  /**
+   * Tokenizes and sentence splits the text of a section, in chunks of at most
+   * {@link #CHUNK_SIZE_PROPERTY} characters if it is set, converting each chunk's
+   * sentences before the next chunk is annotated.
+   */
+  private List<Sentence> annotateSection(final String text, final int begin, final int end, final ConversionContext ctx) {
+    if (this.chunkSize <= 0 || end - begin <= this.chunkSize)
+      return this.annotateChunk(text, begin, end, ctx);
+
+    List<Sentence> stList = new ArrayList<>();
+    int chunks = 0;
+    for (int cb = begin; cb < end;) {
+      final int ce = chunkEnd(text, cb, end, this.chunkSize);
+      if (!SectionFilter.isBlank(text, cb, ce))
+        stList.addAll(this.annotateChunk(text, cb, ce, ctx));
+      cb = ce;
+      chunks++;
+    }
+    LOGGER.debug("Annotated {} characters in {} chunks; got {} sentences.", end - begin, chunks, stList.size());
+    return stList;
+  }
+
+  private List<Sentence> annotateChunk(final String text, final int begin, final int end, final ConversionContext ctx) {
+    final Annotation anno = new Annotation(text.substring(begin, end));
+    this.pipeline.annotate(anno);
+    if (LOGGER.isTraceEnabled())
+      anno.get(TokensAnnotation.class).forEach(cl -> LOGGER.trace("Got non-sent Stanford token: {}", cl.toShorterString(new String[0])));
+    return annotationToSentenceList(anno, begin, ctx);
+  }
+
+  /**
+   * Chooses where a chunk starting at <code>begin</code> ends: after the last
+   * blank line in the second half of the chunk, so that no sentence spans two
+   * chunks; failing that, after the last newline or whitespace; failing that,
+   * at the chunk size. A surrogate pair is never split, and the chunk always
+   * holds at least one character.
+   *
+   * @return the end of the chunk, exclusive
+   */
+  static int chunkEnd(final String text, final int begin, final int end, final int size) {
+    final int limit = begin + size;
+    if (limit >= end)
+      return end;
+    final int floor = begin + size / 2;
+    int newline = -1;
+    int space = -1;
+    for (int i = limit - 1; i > floor; i--) {
+      final char c = text.charAt(i);
+      if (c == '\n') {
+        if (text.charAt(i - 1) == '\n' || (text.charAt(i - 1) == '\r' && i > 1 && text.charAt(i - 2) == '\n'))
+          return i + 1;
+        if (newline < 0)
+          newline = i + 1;
+      } else if (space < 0 && Character.isWhitespace(c)) {
+        space = i + 1;
+      }
+    }
+    if (newline > 0)
+      return newline;
+    if (space > 0)
+      return space;
+    if (!Character.isLowSurrogate(text.charAt(limit)))
+      return limit;
+    // keep the pair in this chunk if it cannot go to the next
+    return limit - 1 > begin ? limit - 1 : limit + 1;
+  }
+
   /* (non-Javadoc)
    * @see edu.jhu.hlt.concrete.analytics.base.Analytic#annotate(edu.jhu.hlt.concrete.Communication)
    */
@@ -120,57 +204,21 @@ public class ConcreteStanfordTokensSentenceAnalytic implements SectionedCommunic
       throw new AnalyticException("communication.text must be set to run this analytic.");
     AnalyticUUIDGeneratorFactory f = new AnalyticUUIDGeneratorFactory(cp);
     AnalyticUUIDGenerator g = f.create();
+    final String text = cp.getText();
     List<Section> sList = arg0.getSections()
         .stream()
-        // temporary hack - filter out
-        // any zero-length TextSpans.
-        .filter(s -> {
-          final TextSpan ts = s.getTextSpan();
-          return ts.getStart() != ts.getEnding();
-        })
-        // temporary hack - filter out any
-        // TextSpans that contain only whitespace.
-        .filter(s -> {
-          final TextSpan ts = s.getTextSpan();
-          final int b = ts.getStart();
-          final int e = ts.getEnding();
-          if (e < b) {
-            LOGGER.warn("Invalid text span: end is less than start. Document: {}; TextSpan: {}",
-                        cp.getId(), ts.toString());
-            return false;
-          }
-          String txt = cp.getText().substring(b, e);
-          // that isn't enough, could get HTML encoded blank spaces.
-          if (txt.contains("&nbsp"))
-            txt = StringEscapeUtils.unescapeHtml4(txt);
-
-          String slim = txt.trim().replaceAll("\\p{Zs}", "");
-          return !slim.isEmpty();
-        })
+        .filter(s -> this.filter.accept(s, text, cp.getId()))
         .collect(Collectors.toList());
     final int newSize = sList.size();
     final int oSize = arg0.getSections().size();
     if (newSize < oSize)
-      LOGGER.info("Dropped {} section(s) because they were zero-length or contained only whitespace.", oSize - newSize);
+      LOGGER.info("Dropped {} section(s) because they were skipped, zero-length, or contained only whitespace.", oSize - newSize);
+    final ConversionContext ctx = new ConversionContext(g);
     // for each section, run stanford tokenization and sentence splitting
     for (Section s : sList) {
       LOGGER.debug("Annotating section: {}", s.getUuid().getUuidString());
       final TextSpan sts = s.getTextSpan();
-      final String sectTxt = cp.getText().substring(sts.getStart(), sts.getEnding());
-      // final String sectTxt = new SuperTextSpan(sts, cp).getText();
-      LOGGER.debug("Section text: {}", sectTxt);
-      final Annotation sectAnnotation = new Annotation(sectTxt);
-      LOGGER.debug("Got annotation keys:");
-      sectAnnotation.keySet().forEach(k -> LOGGER.debug("{}", k));
-      this.pipeline.annotate(sectAnnotation);
-      LOGGER.trace("Post annotation annotation keys:");
-      sectAnnotation.keySet().forEach(k -> LOGGER.trace("{}", k));
-
-      List<CoreLabel> tokensOnly = sectAnnotation.get(TokensAnnotation.class);
-      tokensOnly.forEach(cl -> LOGGER.trace("Got non-sent Stanford token: {}", cl.toShorterString(new String[0])));
-      // LOGGER.debug("Got first sentence text annotation: {}", sectAnnotation.get(SentencesAnnotation.class).get(0).get(TextAnnotation.class));
-      List<Sentence> stList = annotationToSentenceList(sectAnnotation, sts.getStart(), g);
-      s.setSentenceList(stList);
+      s.setSentenceList(this.annotateSection(text, sts.getStart(), sts.getEnding(), ctx));
     }
 
     cp.setSectionList(sList);
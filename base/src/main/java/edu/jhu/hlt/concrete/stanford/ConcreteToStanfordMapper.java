@@ -35,8 +35,6 @@ public class ConcreteToStanfordMapper {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ConcreteToStanfordMapper.class);
 
-  private static final CoreLabelTokenFactory factory = new CoreLabelTokenFactory();
-
   /**
    *
    */
@@ -44,34 +42,56 @@ public class ConcreteToStanfordMapper {
 
   }
 
+  /**
+   * The keys set on each label here: value, word, original text, character
+   * offsets, index and sentence index; plus room for the part of speech,
+   * lemma, named entity tag and normalized named entity tag that
+   * annotators add, so that labels are not resized during annotation.
+   */
+  static final int LABEL_CAPACITY = 11;
+
+  /**
+   * The keys set on each sentence here, plus room for the tree and
+   * dependency graphs that annotators add.
+   */
+  static final int SENTENCE_CAPACITY = 12;
+
+  /**
+   * Builds one CoreNLP sentence per sentence of the section, from its tokens.
+   * <br>
+   * <br>
+   * Labels carry the same fields as those of {@link CoreLabelTokenFactory#makeToken(String, int, int)},
+   * whose word, value and original text are the token's text, shared rather than copied.
+   * Labels, sentences and their lists are allocated at their final sizes.
+   *
+   * @param sect the section, with tokenized sentences
+   * @param commText the text of the communication
+   * @return the sentences, in order
+   */
   public static List<CoreMap> concreteSectionToCoreMapList(final Section sect, final String commText) {
-    List<CoreMap> toRet = new ArrayList<>();
     List<Sentence> sentList = sect.getSentenceList();
+    final int nSentences = sentList.size();
+    List<CoreMap> toRet = new ArrayList<>(nSentences);
     int tokOffset = 0;
-    for (int i = 0; i < sentList.size(); i++) {
+    for (int i = 0; i < nSentences; i++) {
       Sentence st = sentList.get(i);
-      CoreMap cm = new ArrayCoreMap();
+      CoreMap cm = new ArrayCoreMap(SENTENCE_CAPACITY);
       cm.set(SentenceIndexAnnotation.class, i);
       final TextSpan sts = st.getTextSpan();
       final int sentCharStart = sts.getStart();
       final int sentCharEnd = sts.getEnding();
-      LOGGER.debug("Setting stanford sentence BeginChar = {}", sentCharStart);
       cm.set(CharacterOffsetBeginAnnotation.class, sentCharStart);
-      LOGGER.debug("Setting stanford sentence EndChar = {}", sentCharEnd);
       cm.set(CharacterOffsetEndAnnotation.class, sentCharEnd);
-      String sectText = commText.substring(sentCharStart, sentCharEnd);
-      LOGGER.debug("Setting text: {}", sectText);
-      cm.set(TextAnnotation.class, sectText);
+      cm.set(TextAnnotation.class, commText.substring(sentCharStart, sentCharEnd));
 
       Tokenization tkz = st.getTokenization();
       List<CoreLabel> clList = tokenizationToCoreLabelList(tkz, i, sentCharStart);
-      final int maxIdx = clList.size();
-      LOGGER.debug("Setting stanford sentence token begin: {}", tokOffset);
+      final int tokEnd = tokOffset + clList.size();
       cm.set(TokenBeginAnnotation.class, tokOffset);
-      final int tokEnd = tokOffset + maxIdx;
-      LOGGER.debug("Setting stanford sentence token end: {}", tokEnd);
       cm.set(TokenEndAnnotation.class, tokEnd);
       cm.set(TokensAnnotation.class, clList);
+      if (LOGGER.isTraceEnabled())
+        LOGGER.trace("Mapped sentence {}: characters [{}, {}), tokens [{}, {})", i, sentCharStart, sentCharEnd, tokOffset, tokEnd);
 
       tokOffset = tokEnd;
       toRet.add(cm);
@@ -81,22 +101,21 @@ public class ConcreteToStanfordMapper {
   }
 
   private static List<CoreLabel> tokenizationToCoreLabelList(final Tokenization tkz, int sentIdx, int offset) {
-    List<CoreLabel> clList = new ArrayList<CoreLabel>();
-
     TokenList tl = tkz.getTokenList();
     List<Token> tokList = tl.getTokenList();
+    List<CoreLabel> clList = new ArrayList<CoreLabel>(tokList.size());
     for (Token tok : tokList) {
       final TextSpan ts = tok.getTextSpan();
-      final int idx = tok.getTokenIndex();
-      final int idxPlusOne = idx + 1;
-
+      final String text = tok.getText();
       final int begin = ts.getStart() - offset;
-      final int length = ts.getEnding() - ts.getStart();
-      CoreLabel cl = factory.makeToken(tok.getText(), begin, length);
-      cl.setIndex(idxPlusOne);
+      CoreLabel cl = new CoreLabel(LABEL_CAPACITY);
+      cl.setValue(text);
+      cl.setWord(text);
+      cl.setOriginalText(text);
+      cl.setBeginPosition(begin);
+      cl.setEndPosition(begin + ts.getEnding() - ts.getStart());
+      cl.setIndex(tok.getTokenIndex() + 1);
       cl.setSentIndex(sentIdx);
-      // cl.setOriginalText(tok.getText());
-      // cl.set(OriginalTextAnnotation.class, tok.getText());
       clList.add(cl);
     }
 
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import edu.jhu.hlt.concrete.AnnotationMetadata;
+import edu.jhu.hlt.concrete.stanford.languages.DependencyRepresentation;
+import edu.jhu.hlt.concrete.stanford.languages.TokenVerification;
+import edu.jhu.hlt.concrete.util.Timing;
+import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory.AnalyticUUIDGenerator;
+import edu.stanford.nlp.trees.GrammaticalRelation;
+
+/**
+ * State shared by the conversion of all sentences of one document:
+ * the UUID generator, the {@link AnnotationMetadata} of each tool name,
+ * the normalized names of dependency relations, the dependency
+ * representations to convert, and how to check existing tokens.
+ * <br>
+ * <br>
+ * Not thread safe; create one per document.
+ */
+class ConversionContext {
+
+  private static final String ROOT_RELATION = stripWhitespace(GrammaticalRelation.ROOT.getLongName());
+
+  private final AnalyticUUIDGenerator gen;
+  private final long timestamp;
+  private final Map<String, AnnotationMetadata> metadata = new HashMap<>();
+  private final Map<GrammaticalRelation, String> relations = new HashMap<>();
+
+  private final Set<DependencyRepresentation> dependencies;
+  private final TokenVerification verification;
+
+  /**
+   * @param gen the UUID generator of the document
+   */
+  ConversionContext(AnalyticUUIDGenerator gen) {
+    this(gen, EnumSet.allOf(DependencyRepresentation.class), TokenVerification.FINGERPRINT);
+  }
+
+  /**
+   * @param gen the UUID generator of the document
+   * @param dependencies the dependency representations to convert
+   * @param verification how to check the tokens of sentences that already have them
+   */
+  ConversionContext(AnalyticUUIDGenerator gen, Set<DependencyRepresentation> dependencies, TokenVerification verification) {
+    this.gen = gen;
+    this.timestamp = Timing.currentLocalTime();
+    this.dependencies = dependencies;
+    this.verification = verification;
+  }
+
+  TokenVerification getTokenVerification() {
+    return this.verification;
+  }
+
+  AnalyticUUIDGenerator getGenerator() {
+    return this.gen;
+  }
+
+  /**
+   * @param rep a dependency representation
+   * @return <code>true</code> if the representation should be converted
+   */
+  boolean isSelected(DependencyRepresentation rep) {
+    return this.dependencies.contains(rep);
+  }
+
+  /**
+   * @param tool the tool name
+   * @return new metadata with the tool name and the document's conversion time;
+   * a copy, as the annotation it is set on may be modified
+   */
+  AnnotationMetadata getMetadata(String tool) {
+    return new AnnotationMetadata(this.metadata.computeIfAbsent(tool, t -> new AnnotationMetadata(t, this.timestamp, 1)));
+  }
+
+  /**
+   * @return the name of the root relation, as CoreNLP writes it
+   */
+  String getRootRelation() {
+    return ROOT_RELATION;
+  }
+
+  /**
+   * @param rel a dependency relation
+   * @return the relation's name, without whitespace
+   */
+  String getRelation(GrammaticalRelation rel) {
+    String name = this.relations.get(rel);
+    if (name == null) {
+      name = stripWhitespace(rel.toString());
+      this.relations.put(rel, name);
+    }
+    return name;
+  }
+
+  /**
+   * @param s a string
+   * @return <code>s</code> without the characters matched by the regex <code>\s</code>;
+   * <code>s</code> itself if it has none
+   */
+  static String stripWhitespace(String s) {
+    final int len = s.length();
+    int i = 0;
+    while (i < len && !isSpace(s.charAt(i)))
+      i++;
+    if (i == len)
+      return s;
+
+    StringBuilder sb = new StringBuilder(len);
+    sb.append(s, 0, i);
+    for (; i < len; i++) {
+      final char c = s.charAt(i);
+      if (!isSpace(c))
+        sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+}
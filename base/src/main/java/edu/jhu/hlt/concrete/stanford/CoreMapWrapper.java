@@ -7,13 +7,13 @@ package edu.jhu.hlt.concrete.stanford;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import edu.jhu.hlt.concrete.AnnotationMetadata;
 import edu.jhu.hlt.concrete.Sentence;
+import edu.jhu.hlt.concrete.TaggedToken;
 import edu.jhu.hlt.concrete.TextSpan;
 import edu.jhu.hlt.concrete.Token;
 import edu.jhu.hlt.concrete.TokenList;
@@ -21,16 +21,15 @@ import edu.jhu.hlt.concrete.TokenTagging;
 import edu.jhu.hlt.concrete.Tokenization;
 import edu.jhu.hlt.concrete.TokenizationKind;
 import edu.jhu.hlt.concrete.analytics.base.AnalyticException;
-import edu.jhu.hlt.concrete.metadata.AnnotationMetadataFactory;
 import edu.jhu.hlt.concrete.sentence.SentenceFactory;
 import edu.jhu.hlt.concrete.spans.TextSpanFactory;
+import edu.jhu.hlt.concrete.stanford.languages.TokenVerification;
 import edu.jhu.hlt.concrete.tokenization.TokenTaggingFactory;
 import edu.jhu.hlt.concrete.tokenization.TokenizationFactory;
 import edu.jhu.hlt.concrete.util.ConcreteException;
 import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory.AnalyticUUIDGenerator;
 import edu.stanford.nlp.ling.CoreAnnotations.CharacterOffsetBeginAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.CharacterOffsetEndAnnotation;
-import edu.stanford.nlp.ling.CoreAnnotations.PartOfSpeechAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.SentenceIndexAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.TextAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations.TokenBeginAnnotation;
@@ -60,12 +59,20 @@ public class CoreMapWrapper {
   // "lazily" computed.
   private Sentence st;
 
-  private final AnalyticUUIDGenerator gen;
+  private final ConversionContext ctx;
 
   /**
    *
    */
   public CoreMapWrapper(final CoreMap cm, final AnalyticUUIDGenerator gen) {
+    this(cm, new ConversionContext(gen));
+  }
+
+  /**
+   * @param cm the sentence to convert
+   * @param ctx the {@link ConversionContext} of the sentence's document
+   */
+  CoreMapWrapper(final CoreMap cm, final ConversionContext ctx) {
     this.text = cm.get(TextAnnotation.class);
     this.idx = cm.get(SentenceIndexAnnotation.class);
 
@@ -76,7 +83,7 @@ public class CoreMapWrapper {
     this.tokenEndOffset = cm.get(TokenEndAnnotation.class);
     this.clList = cm.get(TokensAnnotation.class);
     LOGGER.trace("CoreLabel list has {} elements.", clList.size());
-    this.gen = gen;
+    this.ctx = ctx;
   }
 
   /**
@@ -152,7 +159,7 @@ public class CoreMapWrapper {
     if (this.st != null)
       return st;
 
-    Sentence st = new SentenceFactory(this.gen).create();
+    Sentence st = new SentenceFactory(this.ctx.getGenerator()).create();
     Integer bi = this.startOffset;
     LOGGER.debug("Current char offset: {}", charOffset);
     LOGGER.debug("Stanford sentence start offset: {}", bi);
@@ -181,29 +188,61 @@ public class CoreMapWrapper {
     }
   }
 
+  /**
+   * Tokens and tags are read from each {@link CoreLabel} directly. Tags are
+   * only read from labels that have a part of speech.
+   */
   private StanfordToConcreteConversionOutput convertCoreLabels(final int cOffset) throws AnalyticException {
-    TokenTagging nerTT = new TokenTaggingFactory(this.gen).create("NER").setMetadata(AnnotationMetadataFactory.fromCurrentLocalTime().setTool("Stanford CoreNLP"));
-    TokenTagging posTT = new TokenTaggingFactory(this.gen).create("POS").setMetadata(AnnotationMetadataFactory.fromCurrentLocalTime().setTool("Stanford CoreNLP"));
-    TokenTagging lemmaTT = new TokenTaggingFactory(this.gen).create("LEMMA").setMetadata(AnnotationMetadataFactory.fromCurrentLocalTime().setTool("Stanford CoreNLP"));
+    return this.convertCoreLabels(cOffset, true);
+  }
 
-    List<Token> tokList = new ArrayList<>(this.clList.size());
+  /**
+   * @param buildTokens <code>false</code> to convert only the tags; the returned token list is then empty
+   */
+  private StanfordToConcreteConversionOutput convertCoreLabels(final int cOffset, final boolean buildTokens) throws AnalyticException {
+    TokenTaggingFactory ttf = new TokenTaggingFactory(this.ctx.getGenerator());
+    final AnnotationMetadata md = this.ctx.getMetadata("Stanford CoreNLP");
+    TokenTagging nerTT = ttf.create("NER").setMetadata(md);
+    TokenTagging posTT = ttf.create("POS").setMetadata(md);
+    TokenTagging lemmaTT = ttf.create("LEMMA").setMetadata(md);
+
+    final int size = this.clList.size();
+    List<Token> tokList = new ArrayList<>(buildTokens ? size : 0);
+    List<TaggedToken> ners = new ArrayList<>(size);
+    List<TaggedToken> poss = new ArrayList<>(size);
+    List<TaggedToken> lemmas = new ArrayList<>(size);
     for (CoreLabel cl : this.clList) {
-      final Set<Class<?>> keySet = cl.keySet();
-      Token t;
-      if (keySet.contains(PartOfSpeechAnnotation.class)) {
-        PreNERCoreLabelWrapper wrapper = new PreNERCoreLabelWrapper(cl);
-        t = wrapper.getOrig().toConcreteToken(cOffset);
-        wrapper.toPOSToken().ifPresent(tt -> posTT.addToTaggedTokenList(tt));
-        wrapper.toNERToken().ifPresent(tt -> nerTT.addToTaggedTokenList(tt));
-        wrapper.toLemmaToken().ifPresent(tt -> lemmaTT.addToTaggedTokenList(tt));
-      } else {
-        LOGGER.trace("Preparing to wrap CoreLabel: {}", cl.toShorterString(new String[0]));
-        TokenizedCoreLabelWrapper wrapper = new TokenizedCoreLabelWrapper(cl);
-        t = wrapper.toConcreteToken(cOffset);
+      final int idx = cl.index() - 1;
+      if (idx < 0)
+        throw new AnalyticException("The concrete token index was somehow less than 0. Original index: " + cl.index());
+      if (buildTokens) {
+        final int begin = cl.beginPosition();
+        final int end = cl.endPosition();
+        if (begin < 0 || end < 0)
+          throw new AnalyticException("Token " + idx + " has no character offsets.");
+        Token t = new Token(idx);
+        t.setTextSpan(TextSpanFactory.withOffset(begin, end, cOffset));
+        t.setText(cl.word());
+        tokList.add(t);
       }
 
-      tokList.add(t);
+      final String pos = cl.tag();
+      if (pos != null) {
+        poss.add(new TaggedToken().setTokenIndex(idx).setTag(pos));
+        final String ner = cl.ner();
+        if (ner != null)
+          ners.add(new TaggedToken().setTokenIndex(idx).setTag(ner));
+        final String lemma = cl.lemma();
+        if (lemma != null)
+          lemmas.add(new TaggedToken().setTokenIndex(idx).setTag(lemma));
+      }
     }
+    if (!ners.isEmpty())
+      nerTT.setTaggedTokenList(ners);
+    if (!poss.isEmpty())
+      posTT.setTaggedTokenList(poss);
+    if (!lemmas.isEmpty())
+      lemmaTT.setTaggedTokenList(lemmas);
 
     // this is literally just a 4-tuple
     // to make other things cleaner
@@ -215,22 +254,36 @@ public class CoreMapWrapper {
       tkz.addToTokenTaggingList(tt);
   }
 
+  /**
+   * Adds the tokens, if <code>orig</code> has none, and the tags to <code>orig</code>.
+   * If it has tokens, they are checked against CoreNLP's as the
+   * {@link ConversionContext#getTokenVerification()} says.
+   */
   private Tokenization coreLabelToTokenization(final int cOffset, final Tokenization orig) throws AnalyticException {
-    StanfordToConcreteConversionOutput output = this.convertCoreLabels(cOffset);
-    List<Token> outputTL = output.getTokenList();
     List<Token> origTokenList = orig.getTokenList().getTokenList();
-    if (origTokenList.isEmpty())
+    final TokenVerification verification = this.ctx.getTokenVerification();
+    final boolean hasTokens = !origTokenList.isEmpty();
+    StanfordToConcreteConversionOutput output =
+        this.convertCoreLabels(cOffset, !hasTokens || verification == TokenVerification.FULL);
+    List<Token> outputTL = output.getTokenList();
+    if (!hasTokens)
       origTokenList.addAll(outputTL);
 
     // if the "previous" tokenization had tokens,
     // make sure they equal the new ones
-    else if (!origTokenList.equals(outputTL)) {
-      LOGGER.error("Token lists did not match.");
-      LOGGER.error("Original tokens: ");
-      origTokenList.forEach(t -> LOGGER.error("{}", t));
-      LOGGER.error("New tokens: ");
-      outputTL.forEach(t -> LOGGER.error("{}", t));
-      throw new AnalyticException("Token lists did not match.");
+    else if (verification == TokenVerification.FULL) {
+      if (!origTokenList.equals(outputTL)) {
+        LOGGER.error("Token lists did not match.");
+        LOGGER.error("Original tokens: ");
+        origTokenList.forEach(t -> LOGGER.error("{}", t));
+        LOGGER.error("New tokens: ");
+        outputTL.forEach(t -> LOGGER.error("{}", t));
+        throw new AnalyticException("Token lists did not match.");
+      }
+    } else if (verification == TokenVerification.FINGERPRINT) {
+      this.verifyFingerprint(cOffset, origTokenList);
+    } else if (origTokenList.size() != this.clList.size()) {
+      throw new AnalyticException("Token lists did not match: " + origTokenList.size() + " tokens, but CoreNLP annotated " + this.clList.size());
     }
 
     addToTokenTaggingListIfNotEmpty(output.getNerTT(), orig);
@@ -240,13 +293,33 @@ public class CoreMapWrapper {
     return orig;
   }
 
+  /**
+   * Checks that the number of tokens, and each token's index and character
+   * offsets, match CoreNLP's, without building tokens.
+   */
+  private void verifyFingerprint(final int cOffset, final List<Token> origTokenList) throws AnalyticException {
+    final int n = this.clList.size();
+    if (origTokenList.size() != n)
+      throw new AnalyticException("Token lists did not match: " + origTokenList.size() + " tokens, but CoreNLP annotated " + n);
+    for (int i = 0; i < n; i++) {
+      CoreLabel cl = this.clList.get(i);
+      Token t = origTokenList.get(i);
+      TextSpan ts = t.getTextSpan();
+      if (t.getTokenIndex() != cl.index() - 1 || ts == null
+          || ts.getStart() != cl.beginPosition() + cOffset || ts.getEnding() != cl.endPosition() + cOffset) {
+        LOGGER.error("Original token: {}", t);
+        LOGGER.error("CoreNLP token: {} [{}, {})", cl.index() - 1, cl.beginPosition() + cOffset, cl.endPosition() + cOffset);
+        throw new AnalyticException("Token lists did not match at token " + i + ".");
+      }
+    }
+  }
+
   private Tokenization coreLabelToTokenization(int cOffset) throws AnalyticException, ConcreteException {
-    Tokenization tkz = new TokenizationFactory(this.gen).create();
+    Tokenization tkz = new TokenizationFactory(this.ctx.getGenerator()).create();
     tkz.setKind(TokenizationKind.TOKEN_LIST);
     List<Token> tlist = new ArrayList<>();
     tkz.setTokenList(new TokenList(tlist));
-    AnnotationMetadata md = AnnotationMetadataFactory.fromCurrentLocalTime().setTool("Stanford CoreNLP PTB");
-    tkz.setMetadata(md);
+    tkz.setMetadata(this.ctx.getMetadata("Stanford CoreNLP PTB"));
     return this.coreLabelToTokenization(cOffset, tkz);
   }
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import edu.stanford.nlp.dcoref.CorefChain;
+import edu.stanford.nlp.dcoref.CorefChain.CorefMention;
+import edu.stanford.nlp.dcoref.Dictionaries.MentionType;
+import edu.stanford.nlp.ling.CoreAnnotation;
+
+/**
+ * Coreference chains, independent of the sentence numbering of the
+ * annotation they were found in, so that chains found in separate windows of
+ * a document can be merged.
+ */
+class CorefChains {
+
+  private CorefChains() {
+
+  }
+
+  /**
+   * The chains of a document, if they were not found by a single run of
+   * <code>dcoref</code> over the whole document.
+   */
+  static class ChainsAnnotation implements CoreAnnotation<List<Chain>> {
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Override
+    public Class<List<Chain>> getType() {
+      return (Class) List.class;
+    }
+  }
+
+  /**
+   * A mention. Indices are 0-based; <code>end</code> is exclusive.
+   * Mentions are equal if they cover the same tokens.
+   */
+  static class Mention implements Comparable<Mention> {
+    final int sentence;
+    final int start;
+    final int end;
+    final int head;
+    final String text;
+    final MentionType type;
+
+    Mention(int sentence, int start, int end, int head, String text, MentionType type) {
+      this.sentence = sentence;
+      this.start = start;
+      this.end = end;
+      this.head = head;
+      this.text = text;
+      this.type = type;
+    }
+
+    /**
+     * @param m a CoreNLP mention
+     * @param sentenceOffset the index, in the document, of the first sentence of the annotation the mention was found in
+     */
+    Mention(CorefMention m, int sentenceOffset) {
+      this(sentenceOffset + m.sentNum - 1, m.startIndex - 1, m.endIndex - 1, m.headIndex - 1, m.mentionSpan, m.mentionType);
+    }
+
+    @Override
+    public int compareTo(Mention o) {
+      if (this.sentence != o.sentence)
+        return Integer.compare(this.sentence, o.sentence);
+      if (this.start != o.start)
+        return Integer.compare(this.start, o.start);
+      return Integer.compare(this.end, o.end);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Mention))
+        return false;
+      Mention o = (Mention) obj;
+      return this.sentence == o.sentence && this.start == o.start && this.end == o.end;
+    }
+
+    @Override
+    public int hashCode() {
+      return (this.sentence * 31 + this.start) * 31 + this.end;
+    }
+
+    @Override
+    public String toString() {
+      return "Mention [sentence=" + this.sentence + ", start=" + this.start + ", end=" + this.end + ", text=" + this.text + "]";
+    }
+  }
+
+  /**
+   * A chain of mentions, in textual order, with a representative mention.
+   */
+  static class Chain {
+    final Mention representative;
+    final List<Mention> mentions;
+
+    Chain(Mention representative, List<Mention> mentions) {
+      this.representative = representative;
+      this.mentions = mentions;
+    }
+  }
+
+  /**
+   * @param chains the chains found by CoreNLP in an annotation
+   * @param sentenceOffset the index, in the document, of the first sentence of the annotation
+   * @return the chains, in the iteration order of <code>chains</code>
+   */
+  static List<Chain> fromCoreNLP(Map<Integer, CorefChain> chains, int sentenceOffset) {
+    List<Chain> converted = new ArrayList<>(chains.size());
+    for (CorefChain c : chains.values()) {
+      List<Mention> mentions = new ArrayList<>();
+      for (CorefMention m : c.getMentionsInTextualOrder())
+        mentions.add(new Mention(m, sentenceOffset));
+      converted.add(new Chain(new Mention(c.getRepresentativeMention(), sentenceOffset), mentions));
+    }
+    return converted;
+  }
+
+  /**
+   * Merges chains that share a mention, e.g. chains found in overlapping windows.
+   * The representative of a merged chain is the best of its chains' representatives:
+   * a proper name over a nominal over anything else, then the longest, then the first.
+   *
+   * @param chains the chains to merge
+   * @return the merged chains, ordered by their first mention
+   */
+  static List<Chain> merge(List<Chain> chains) {
+    final int n = chains.size();
+    int[] parent = new int[n];
+    for (int i = 0; i < n; i++)
+      parent[i] = i;
+
+    Map<Mention, Integer> owner = new HashMap<>();
+    for (int i = 0; i < n; i++)
+      for (Mention m : chains.get(i).mentions) {
+        Integer j = owner.putIfAbsent(m, i);
+        if (j != null)
+          union(parent, i, j);
+      }
+
+    Map<Integer, List<Chain>> groups = new HashMap<>();
+    for (int i = 0; i < n; i++)
+      groups.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(chains.get(i));
+
+    List<Chain> merged = new ArrayList<>(groups.size());
+    for (List<Chain> group : groups.values()) {
+      if (group.size() == 1) {
+        merged.add(group.get(0));
+        continue;
+      }
+      TreeSet<Mention> mentions = new TreeSet<>();
+      Mention rep = null;
+      for (Chain c : group) {
+        mentions.addAll(c.mentions);
+        if (rep == null || better(c.representative, rep))
+          rep = c.representative;
+      }
+      merged.add(new Chain(rep, new ArrayList<>(mentions)));
+    }
+    merged.sort((a, b) -> a.mentions.get(0).compareTo(b.mentions.get(0)));
+    return merged;
+  }
+
+  private static int rank(MentionType t) {
+    if (t == MentionType.PROPER)
+      return 0;
+    if (t == MentionType.NOMINAL)
+      return 1;
+    return 2;
+  }
+
+  private static boolean better(Mention a, Mention b) {
+    if (rank(a.type) != rank(b.type))
+      return rank(a.type) < rank(b.type);
+    if (a.end - a.start != b.end - b.start)
+      return a.end - a.start > b.end - b.start;
+    return a.compareTo(b) < 0;
+  }
+
+  private static int find(int[] parent, int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+
+  private static void union(int[] parent, int a, int b) {
+    final int ra = find(parent, a);
+    final int rb = find(parent, b);
+    if (ra != rb)
+      parent[Math.max(ra, rb)] = Math.min(ra, rb);
+  }
+}
@@ -5,12 +5,13 @@
 package edu.jhu.hlt.concrete.stanford;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +21,7 @@ import edu.jhu.hlt.concrete.Entity;
 import edu.jhu.hlt.concrete.EntityMention;
 import edu.jhu.hlt.concrete.EntityMentionSet;
 import edu.jhu.hlt.concrete.EntitySet;
+import edu.jhu.hlt.concrete.Token;
 import edu.jhu.hlt.concrete.TokenRefSequence;
 import edu.jhu.hlt.concrete.Tokenization;
 import edu.jhu.hlt.concrete.UUID;
@@ -30,7 +32,6 @@ import edu.jhu.hlt.concrete.miscommunication.tokenized.CachedTokenizationCommuni
 import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
 import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory;
 import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory.AnalyticUUIDGenerator;
-import edu.stanford.nlp.dcoref.CorefChain;
 import edu.stanford.nlp.dcoref.CorefChain.CorefMention;
 import edu.stanford.nlp.dcoref.CorefCoreAnnotations;
 import edu.stanford.nlp.ling.CoreAnnotations;
@@ -48,17 +49,35 @@ class CorefManager {
   private final TokenizedCommunication tc;
   private final Annotation annotation;
   private final AnalyticUUIDGenerator gen;
+  private final boolean validate;
+  private final RunStatistics stats;
+  // built on first use, once per tokenization
+  private final Map<Tokenization, TokenIndex> indices = new IdentityHashMap<>();
 
   /**
    *
    */
   public CorefManager(final TokenizedCommunication tc, final Annotation annotation) {
+    this(tc, annotation, true, new RunStatistics());
+  }
+
+  /**
+   * @param tc the communication to add coreference to
+   * @param annotation the annotation, with coreference chains, of the communication
+   * @param validate <code>true</code> to check that each mention's tokens are in its {@link Tokenization}
+   * @param stats a {@link RunStatistics} to record conversion counts and times in
+   */
+  CorefManager(final TokenizedCommunication tc, final Annotation annotation, final boolean validate, final RunStatistics stats) {
     this.tc = tc;
     this.annotation = annotation;
     this.gen = new AnalyticUUIDGeneratorFactory(tc.getRoot()).create();
+    this.validate = validate;
+    this.stats = stats;
   }
 
   public TokenizedCommunication addCoreference() throws AnalyticException {
+    StopWatch sw = new StopWatch();
+    sw.start();
     List<Tokenization> tkzList = this.tc.getTokenizations();
     Communication root = this.tc.getRoot();
 
@@ -84,10 +103,13 @@ class CorefManager {
         .setEntityList(new ArrayList<Entity>())
         .setMentionSetId(ems.getUuid());
 
-    Optional<Map<Integer, CorefChain>> coreNlpChainsOption = Optional.ofNullable(this.annotation.get(CorefCoreAnnotations.CorefChainAnnotation.class));
-    if (coreNlpChainsOption.isPresent()) {
-      Map<Integer, CorefChain> chains = coreNlpChainsOption.get();
-      for (CorefChain chain : chains.values()) {
+    // chains merged from windows, or else those of a single dcoref run
+    Optional<List<CorefChains.Chain>> chainsOption = Optional.ofNullable(this.annotation.get(CorefChains.ChainsAnnotation.class));
+    if (!chainsOption.isPresent())
+      chainsOption = Optional.ofNullable(this.annotation.get(CorefCoreAnnotations.CorefChainAnnotation.class))
+          .map(m -> CorefChains.fromCoreNLP(m, 0));
+    if (chainsOption.isPresent()) {
+      for (CorefChains.Chain chain : chainsOption.get()) {
         Entity entity = this.makeEntity(chain, ems, tkzList);
         es.addToEntityList(entity);
       }
@@ -101,6 +123,14 @@ class CorefManager {
     root.addToEntityMentionSetList(ems);
     root.addToEntitySetList(es);
 
+    sw.stop();
+    LOGGER.debug("Converted {} entities and {} mentions for Communication {} in {} ms",
+        es.getEntityListSize(), ems.getMentionListSize(), commId, sw.getTime());
+    this.stats.increment("coref.documents");
+    this.stats.add("coref.entities", es.getEntityListSize());
+    this.stats.add("coref.mentions", ems.getMentionListSize());
+    this.stats.add("coref.convert.ms", sw.getTime());
+
     try {
       return new CachedTokenizationCommunication(root);
     } catch (MiscommunicationException e) {
@@ -109,30 +139,68 @@ class CorefManager {
   }
 
   private void validateTokenRefSeqValidity(final TokenRefSequence trs, final Tokenization owner) throws AnalyticException {
-    String uuidStr = owner.getUuid().getUuidString();
-    List<Integer> trsIntList = trs.getTokenIndexList();
-    Set<Integer> tkzIntSet = owner.getTokenList().getTokenList().stream()
-        .map(tk -> tk.getTokenIndex())
-        .collect(Collectors.toSet());
-
-    LOGGER.debug("Set tokens: {}", tkzIntSet.toString());
-    LOGGER.debug("TRS tokens: {}", trsIntList.toString());
-
-    if (!tkzIntSet.containsAll(trsIntList)) {
+    if (!this.validate)
+      return;
+    TokenIndex idx = this.indices.computeIfAbsent(owner, TokenIndex::new);
+    if (!idx.containsAll(trs.getTokenIndexList())) {
+      String uuidStr = owner.getUuid().getUuidString();
       LOGGER.error("The produced TokenRefSequence for Tokenization {} is invalid.", uuidStr);
       LOGGER.error("The token indices do not align.");
-      LOGGER.error("Tokenization indices: {}", tkzIntSet.toString());
-      LOGGER.error("TokenRefSeq indices: {}", trsIntList.toString());
+      LOGGER.error("Tokenization indices: {}", idx.toString());
+      LOGGER.error("TokenRefSeq indices: {}", trs.getTokenIndexList().toString());
       throw new AnalyticException("TokenRefSequence tokens are not a subset of Tokenization tokens for Tokenization: " + uuidStr);
     }
   }
 
-  private Entity makeEntity(CorefChain chain, EntityMentionSet ems, List<Tokenization> tokenizations) throws AnalyticException {
+  /**
+   * The token indices of a {@link Tokenization}. Usually these are
+   * <code>0</code> to <code>n - 1</code>, and only <code>n</code> is kept;
+   * otherwise, they are kept in a {@link BitSet}.
+   */
+  static class TokenIndex {
+    private final int size;
+    private final BitSet indices;
+
+    TokenIndex(Tokenization tkz) {
+      final List<Token> tokens = tkz.getTokenList().getTokenList();
+      final int n = tokens.size();
+      int i = 0;
+      while (i < n && tokens.get(i).getTokenIndex() == i)
+        i++;
+      this.size = n;
+      if (i == n) {
+        this.indices = null;
+      } else {
+        this.indices = new BitSet(n);
+        for (Token t : tokens)
+          if (t.getTokenIndex() >= 0)
+            this.indices.set(t.getTokenIndex());
+      }
+    }
+
+    boolean contains(int index) {
+      if (index < 0)
+        return false;
+      return this.indices == null ? index < this.size : this.indices.get(index);
+    }
+
+    boolean containsAll(List<Integer> indexList) {
+      for (int i = 0, n = indexList.size(); i < n; i++)
+        if (!this.contains(indexList.get(i)))
+          return false;
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return this.indices == null ? "[0, " + this.size + ")" : this.indices.toString();
+    }
+  }
+
+  private Entity makeEntity(CorefChains.Chain chain, EntityMentionSet ems, List<Tokenization> tokenizations) throws AnalyticException {
     Entity concEntity = new Entity().setUuid(this.gen.next());
-    CorefChain.CorefMention coreHeadMention = chain.getRepresentativeMention();
-    // CoreNLP uses 1-based indexing for the sentences
-    // just subtract 1.
-    Tokenization tkz = tokenizations.get(coreHeadMention.sentNum - 1);
+    CorefChains.Mention coreHeadMention = chain.representative;
+    Tokenization tkz = tokenizations.get(coreHeadMention.sentence);
     UUID tkzUuid = tkz.getUuid();
     LOGGER.debug("Creating EntityMention based on tokenization: {}", tkzUuid.getUuidString());
     EntityMention concHeadMention = makeEntityMention(coreHeadMention, tkzUuid, true);
@@ -141,15 +209,13 @@ class CorefManager {
     // TODO: below throws if they're invalid. maybe this can be removed in the future.
     this.validateTokenRefSeqValidity(trs, tkz);
 
-    concEntity.setCanonicalName(coreHeadMention.mentionSpan);
+    concEntity.setCanonicalName(coreHeadMention.text);
     concEntity.addToMentionIdList(concHeadMention.getUuid());
     ems.addToMentionList(concHeadMention);
-    for (CorefChain.CorefMention mention : chain.getMentionsInTextualOrder()) {
-      if (mention == coreHeadMention)
+    for (CorefChains.Mention mention : chain.mentions) {
+      if (mention.equals(coreHeadMention))
         continue;
-      // CoreNLP uses 1-based indexing for the sentences
-      // we'll just subtract one.
-      Tokenization localTkz = tokenizations.get(mention.sentNum - 1);
+      Tokenization localTkz = tokenizations.get(mention.sentence);
       EntityMention concMention = this.makeEntityMention(mention, localTkz.getUuid(), false);
       TokenRefSequence localTrs = concMention.getTokens();
       this.validateTokenRefSeqValidity(localTrs, localTkz);
@@ -160,14 +226,14 @@ class CorefManager {
     return concEntity;
   }
 
-  private EntityMention makeEntityMention(CorefChain.CorefMention coreMention, UUID tokenizationUuid, boolean representative) throws AnalyticException {
+  private EntityMention makeEntityMention(CorefChains.Mention coreMention, UUID tokenizationUuid, boolean representative) throws AnalyticException {
     EntityMention concEntityMention = new EntityMention().setUuid(this.gen.next());
     TokenRefSequence trs = extractTokenRefSequence(coreMention, tokenizationUuid, representative);
     concEntityMention.setTokens(trs);
-    concEntityMention.setText(coreMention.mentionSpan);
+    concEntityMention.setText(coreMention.text);
     // TODO: we could possibly add mention types. We could use a feature of
     // CoreNLP:
-    // MentionType mentionType = coreMention.mentionType;
+    // MentionType mentionType = coreMention.type;
     // or we could use a heuristic (see concrete-agiga).
     // String emType = getEntityMentionType(em, tokenization);
     return concEntityMention;
@@ -183,10 +249,15 @@ class CorefManager {
    */
   public static TokenRefSequence extractTokenRefSequence(CorefMention coreMention,
       UUID tokUuid, boolean representative) throws AnalyticException {
-    int start = coreMention.startIndex - 1;
-    int end   = coreMention.endIndex - 1;
-    LOGGER.debug("Working on mention string: {}", coreMention.mentionSpan);
-    int head = coreMention.headIndex - 1;
+    return extractTokenRefSequence(new CorefChains.Mention(coreMention, 0), tokUuid, representative);
+  }
+
+  private static TokenRefSequence extractTokenRefSequence(CorefChains.Mention coreMention,
+      UUID tokUuid, boolean representative) throws AnalyticException {
+    int start = coreMention.start;
+    int end   = coreMention.end;
+    LOGGER.debug("Working on mention string: {}", coreMention.text);
+    int head = coreMention.head;
     if (end - start < 0) {
       throw new AnalyticException(
           "Calling extractTokenRefSequence on mention " + coreMention
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
+
+/**
+ * The result of an annotation whose coreference stage was deferred: the
+ * communication without coreference, available at once, and, if coreference
+ * is enabled, a future for a copy of it with coreference added.
+ *
+ * @see ConcreteStanfordPreCorefAnalytic#annotateDeferringCoref(TokenizedCommunication, java.util.concurrent.Executor)
+ */
+public class DeferredCoreference {
+
+  private final TokenizedCommunication preCoref;
+  private final Optional<CompletableFuture<TokenizedCommunication>> coref;
+
+  DeferredCoreference(TokenizedCommunication preCoref, Optional<CompletableFuture<TokenizedCommunication>> coref) {
+    this.preCoref = preCoref;
+    this.coref = coref;
+  }
+
+  /**
+   * @return the annotated communication, without coreference
+   */
+  public TokenizedCommunication getPreCoref() {
+    return this.preCoref;
+  }
+
+  /**
+   * @return a future for a copy of the communication with coreference added, or empty
+   * if coreference is not enabled. Completes exceptionally with an
+   * {@link edu.jhu.hlt.concrete.analytics.base.AnalyticException} if coreference fails.
+   */
+  public Optional<CompletableFuture<TokenizedCommunication>> getCoref() {
+    return this.coref;
+  }
+
+  /**
+   * Creates an executor for deferred coreference: a single thread at
+   * {@link Thread#MIN_PRIORITY}, as <code>dcoref</code> is not safe to run
+   * on more than one thread. Each waiting document holds its CoreNLP
+   * annotation in memory, so the number waiting is bounded; submitting
+   * another blocks until there is room.
+   *
+   * @param backlog the number of documents that may wait for coreference
+   * @return an {@link ExecutorService}, which should be shut down once all documents are submitted
+   */
+  public static ExecutorService newExecutor(int backlog) {
+    if (backlog <= 0)
+      throw new IllegalArgumentException("Backlog must be positive: " + backlog);
+    return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(backlog),
+        r -> {
+          Thread t = new Thread(r, "deferred-coref");
+          t.setPriority(Thread.MIN_PRIORITY);
+          return t;
+        },
+        (r, ex) -> {
+          if (ex.isShutdown())
+            throw new RejectedExecutionException("Deferred coreference executor is shut down");
+          try {
+            ex.getQueue().put(r);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for room in the backlog", e);
+          }
+        });
+  }
+}
@@ -1,66 +1,165 @@
 /*
- * Copyright 2012-2015 Johns Hopkins University HLTCOE. All rights reserved.
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
  * See LICENSE in the project root directory.
  */
 package edu.jhu.hlt.concrete.stanford;
 
-import java.util.HashSet;
-import java.util.Scanner;
-import java.util.Set;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
 
 /**
- *
+ * Replaces lines of markup with spaces, leaving every other character,
+ * including line breaks, where it was, so that offsets into the rewritten
+ * text are offsets into the original.
+ * <br>
+ * <br>
+ * A line is markup if it is a single opening or closing tag whose name is in
+ * the rewriter's tag table, e.g. <code>&lt;P&gt;</code>, <code>&lt;/P&gt;</code>
+ * or <code>&lt;DOC id="..." type="story"&gt;</code>. Tags that share a line
+ * with text are left alone. Text is rewritten in one pass over a
+ * <code>char[]</code>; {@link #rewrite(Reader, Writer)} streams.
  */
 public class MarkupRewriter {
 
-  private static final Set<String> gwMarkupTags = new HashSet<>();
-  static {
-    gwMarkupTags.add("<HEADLINE>");
-    gwMarkupTags.add("</HEADLINE>");
-    gwMarkupTags.add("<DATELINE>");
-    gwMarkupTags.add("</DATELINE>");
-    gwMarkupTags.add("<TEXT>");
-    gwMarkupTags.add("</TEXT>");
-    gwMarkupTags.add("<P>");
-    gwMarkupTags.add("</P>");
-    gwMarkupTags.add("</DOC>");
-  }
+  /**
+   * Removes the markup of Gigaword-style SGML documents.
+   */
+  public static final MarkupRewriter GIGAWORD = new MarkupRewriter(Arrays.asList("DOC", "HEADLINE", "DATELINE", "TEXT", "P"));
+
+  static final int BUFFER_SIZE = 8192;
+
+  private final char[][] tagNames;
 
   /**
-   *
+   * @param tagNames the names of the tags to remove, e.g. <code>P</code>; case-sensitive
    */
-  private MarkupRewriter() {
-    // TODO Auto-generated constructor stub
+  public MarkupRewriter(Collection<String> tagNames) {
+    this.tagNames = new char[tagNames.size()][];
+    int i = 0;
+    for (String t : tagNames)
+      this.tagNames[i++] = t.toCharArray();
   }
 
+  /**
+   * @param gigawordDocumentContent the text of a Gigaword document
+   * @return the text, with its markup replaced by spaces
+   * @see #GIGAWORD
+   */
   public static final String removeMarkup(final String gigawordDocumentContent) {
-    return replaceMarkupWithSpaces(gigawordDocumentContent);
+    return GIGAWORD.rewrite(gigawordDocumentContent);
   }
 
-  private static final void stringToSpaces(final String toSpace, final StringBuilder toPad) {
-    final int len = toSpace.length();
-    for (int i = 0; i < len; i++)
-      toPad.append(" ");
+  /**
+   * @param text the text to rewrite
+   * @return the text, with its markup replaced by spaces; of the same length
+   */
+  public String rewrite(final String text) {
+    final char[] cs = text.toCharArray();
+    final int end = this.blankLines(cs, 0, cs.length);
+    this.blankIfTag(cs, end, cs.length);
+    return new String(cs);
+  }
+
+  /**
+   * Rewrites a stream, holding at most {@value #BUFFER_SIZE} characters at a time.
+   * Lines longer than that are copied as they are.
+   *
+   * @param in the text to rewrite
+   * @param out where to write the text, with its markup replaced by spaces
+   * @throws IOException on a failure to read or write
+   */
+  public void rewrite(final Reader in, final Writer out) throws IOException {
+    this.rewrite(in, out, BUFFER_SIZE);
   }
 
-  private static final String replaceMarkupWithSpaces(final String gwText) {
-    StringBuilder newText = new StringBuilder();
-    try (Scanner sc = new Scanner(gwText);) {
-      String fLine = sc.nextLine();
-      stringToSpaces(fLine, newText);
-      newText.append("\n");
-
-      while(sc.hasNextLine()) {
-        final String nLine = sc.nextLine();
-        if (gwMarkupTags.contains(nLine))
-          stringToSpaces(nLine, newText);
-        else
-          newText.append(nLine);
-
-        newText.append("\n");
+  void rewrite(final Reader in, final Writer out, final int bufferSize) throws IOException {
+    final char[] buf = new char[bufferSize];
+    int len = 0;
+    // true while copying the rest of a line that did not fit in the buffer
+    boolean overlong = false;
+    int n;
+    while ((n = in.read(buf, len, buf.length - len)) != -1) {
+      final int scanFrom = len;
+      len += n;
+      int start = 0;
+      for (int i = scanFrom; i < len; i++)
+        if (isLineBreak(buf[i])) {
+          if (!overlong)
+            this.blankIfTag(buf, start, i);
+          overlong = false;
+          start = i + 1;
+        }
+
+      if (start == 0 && len == buf.length) {
+        out.write(buf, 0, len);
+        len = 0;
+        overlong = true;
+      } else {
+        out.write(buf, 0, start);
+        len -= start;
+        System.arraycopy(buf, start, buf, 0, len);
       }
     }
 
-    return newText.toString();
+    if (!overlong)
+      this.blankIfTag(buf, 0, len);
+    out.write(buf, 0, len);
+    out.flush();
+  }
+
+  /**
+   * Blanks each complete line in <code>[begin, end)</code> that is markup.
+   *
+   * @return the start of the last, unterminated, line
+   */
+  private int blankLines(final char[] cs, final int begin, final int end) {
+    int start = begin;
+    for (int i = begin; i < end; i++)
+      if (isLineBreak(cs[i])) {
+        this.blankIfTag(cs, start, i);
+        start = i + 1;
+      }
+    return start;
+  }
+
+  private static boolean isLineBreak(final char c) {
+    return c == '\n' || c == '\r';
+  }
+
+  private void blankIfTag(final char[] cs, final int begin, final int end) {
+    if (this.isTag(cs, begin, end))
+      Arrays.fill(cs, begin, end, ' ');
+  }
+
+  private boolean isTag(final char[] cs, final int begin, final int end) {
+    final int close = end - 1;
+    if (end - begin < 3 || cs[begin] != '<' || cs[close] != '>')
+      return false;
+    final int nameStart = cs[begin + 1] == '/' ? begin + 2 : begin + 1;
+    for (char[] name : this.tagNames) {
+      final int nameEnd = nameStart + name.length;
+      if (nameEnd > close || !regionMatches(cs, nameStart, name))
+        continue;
+      if (nameEnd == close)
+        return true;
+      if (!Character.isWhitespace(cs[nameEnd]))
+        continue;
+      // attributes: no other tag may close before the end of the line
+      for (int i = nameEnd; i < close; i++)
+        if (cs[i] == '>')
+          return false;
+      return true;
+    }
+    return false;
+  }
+
+  private static boolean regionMatches(final char[] cs, final int from, final char[] name) {
+    for (int i = 0; i < name.length; i++)
+      if (cs[from + i] != name[i])
+        return false;
+    return true;
   }
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.jhu.hlt.concrete.stanford.languages.ParseFallback;
+import edu.stanford.nlp.ling.CoreAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.TokensAnnotation;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.Annotator;
+import edu.stanford.nlp.pipeline.DependencyParseAnnotator;
+import edu.stanford.nlp.pipeline.ParserAnnotatorUtils;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations.BasicDependenciesAnnotation;
+import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation;
+import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations.CollapsedDependenciesAnnotation;
+import edu.stanford.nlp.trees.GrammaticalStructure;
+import edu.stanford.nlp.trees.LabeledScoredTreeFactory;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeFactory;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.PropertiesUtils;
+
+/**
+ * Replaces the placeholder trees CoreNLP's parser produces for sentences longer
+ * than <code>parse.maxlen</code> with the configured {@link ParseFallback}.
+ * <br>
+ * <br>
+ * Must run directly after the <code>parse</code> annotator, so that annotators
+ * that follow (e.g. <code>dcoref</code>) see the fallback trees. Sentences that
+ * were handled are marked with a {@link ParseFallbackAnnotation}.
+ */
+class ParseAdmission {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParseAdmission.class);
+
+  static final String MAX_LENGTH_PROPERTY = "parse.maxlen";
+
+  private static final String PHRASE_LABEL = "X";
+  private static final TreeFactory TF = new LabeledScoredTreeFactory();
+
+  /**
+   * Marks a sentence that was too long for the parser, and the fallback it received.
+   */
+  static class ParseFallbackAnnotation implements CoreAnnotation<ParseFallback> {
+    @Override
+    public Class<ParseFallback> getType() {
+      return ParseFallback.class;
+    }
+  }
+
+  private final int maxLength;
+  private final ParseFallback fallback;
+  private final Optional<Annotator> depparse;
+  private final RunStatistics stats;
+
+  private ParseAdmission(int maxLength, ParseFallback fallback, Optional<Annotator> depparse, RunStatistics stats) {
+    this.maxLength = maxLength;
+    this.fallback = fallback;
+    this.depparse = depparse;
+    this.stats = stats;
+  }
+
+  /**
+   * @param props the pipeline {@link Properties}
+   * @param stats the {@link RunStatistics} to record fallbacks in
+   * @return a {@link ParseAdmission}, or {@link Optional#empty()} if no maximum parse length is set
+   */
+  static Optional<ParseAdmission> fromProperties(Properties props, RunStatistics stats) {
+    final int maxLength = Integer.parseInt(props.getProperty(MAX_LENGTH_PROPERTY, "0"));
+    if (maxLength <= 0)
+      return Optional.empty();
+    final ParseFallback fallback = ParseFallback.fromProperties(props);
+    Optional<Annotator> depparse = Optional.empty();
+    if (fallback == ParseFallback.DEPENDENCY_ONLY)
+      depparse = Optional.of(new DependencyParseAnnotator(PropertiesUtils.extractPrefixedProperties(props, "depparse.")));
+    LOGGER.info("Sentences longer than {} tokens will not be parsed; fallback: {}", maxLength, fallback);
+    return Optional.of(new ParseAdmission(maxLength, fallback, depparse, stats));
+  }
+
+  /**
+   * @param anno an {@link Annotation} the <code>parse</code> annotator has just run over
+   */
+  void apply(Annotation anno) {
+    List<CoreMap> oversize = new ArrayList<>();
+    for (CoreMap cm : anno.get(SentencesAnnotation.class)) {
+      List<CoreLabel> tokens = cm.get(TokensAnnotation.class);
+      this.stats.increment("parse.sentences");
+      if (tokens.size() <= this.maxLength)
+        continue;
+
+      LOGGER.debug("Sentence with {} tokens exceeds the maximum parse length; using fallback: {}", tokens.size(), this.fallback);
+      Tree t = this.fallback == ParseFallback.RIGHT_BRANCHING ? rightBranchingTree(tokens) : flatTree(tokens);
+      // keeps a tree on the sentence for downstream annotators, even for DEPENDENCY_ONLY;
+      // it is not converted to a Parse.
+      ParserAnnotatorUtils.fillInParseAnnotations(false, false, null, cm, t, GrammaticalStructure.Extras.NONE);
+      // the dependencies CoreNLP derived from its placeholder tree are meaningless.
+      cm.set(BasicDependenciesAnnotation.class, new SemanticGraph());
+      cm.set(CollapsedDependenciesAnnotation.class, new SemanticGraph());
+      cm.set(CollapsedCCProcessedDependenciesAnnotation.class, new SemanticGraph());
+      cm.set(ParseFallbackAnnotation.class, this.fallback);
+      oversize.add(cm);
+
+      this.stats.increment("parse.fallback." + this.fallback.toString());
+      this.stats.add("parse.fallback.tokens", tokens.size());
+    }
+
+    if (!oversize.isEmpty())
+      this.depparse.ifPresent(a -> a.annotate(new Annotation(oversize)));
+  }
+
+  private static List<Tree> preterminals(List<CoreLabel> tokens) {
+    List<Tree> pts = new ArrayList<>(tokens.size());
+    for (CoreLabel cl : tokens) {
+      final String tag = Optional.ofNullable(cl.tag()).orElse(PHRASE_LABEL);
+      pts.add(TF.newTreeNode(tag, Collections.singletonList(TF.newLeaf(cl.word()))));
+    }
+    return pts;
+  }
+
+  /**
+   * @param tokens the tokens of the sentence
+   * @return <code>(ROOT (X (t1 w1) (t2 w2) ... (tn wn)))</code>
+   */
+  static Tree flatTree(List<CoreLabel> tokens) {
+    Tree x = TF.newTreeNode(PHRASE_LABEL, preterminals(tokens));
+    return TF.newTreeNode("ROOT", Collections.singletonList(x));
+  }
+
+  /**
+   * @param tokens the tokens of the sentence
+   * @return <code>(ROOT (X (t1 w1) (X (t2 w2) (X ... (X (tn wn))))))</code>
+   */
+  static Tree rightBranchingTree(List<CoreLabel> tokens) {
+    List<Tree> pts = preterminals(tokens);
+    final int n = pts.size();
+    Tree acc = TF.newTreeNode(PHRASE_LABEL, Collections.singletonList(pts.get(n - 1)));
+    for (int i = n - 2; i >= 0; i--) {
+      List<Tree> kids = new ArrayList<>(2);
+      kids.add(pts.get(i));
+      kids.add(acc);
+      acc = TF.newTreeNode(PHRASE_LABEL, kids);
+    }
+    return TF.newTreeNode("ROOT", Collections.singletonList(acc));
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.analytics.base.Analytic;
+import edu.jhu.hlt.concrete.analytics.base.AnalyticException;
+import edu.jhu.hlt.concrete.miscommunication.WrappedCommunication;
+
+/**
+ * Runs annotation requests from several threads on a fixed pool of analytics.
+ * Each request leases an idle analytic, waiting for one if all are busy,
+ * and returns it when done, so that no analytic runs two requests at once.
+ * <br>
+ * <br>
+ * The pool's statistics include the number of leases and timeouts, the time
+ * spent waiting for and holding leases, in microseconds, and the share of the
+ * pool's lifetime its analytics were busy.
+ *
+ * @see ConcreteStanfordPreCorefAnalytic#replicate()
+ */
+public class PooledAnalytic<T extends WrappedCommunication> implements Analytic<T>, StatisticsReporting {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PooledAnalytic.class);
+
+  private final ImmutableList<Analytic<T>> members;
+  private final BlockingQueue<Analytic<T>> idle;
+  private final long timeoutMillis;
+
+  private final RunStatistics stats = new RunStatistics();
+  private final LongAdder busyNanos = new LongAdder();
+  private final long createdNanos = System.nanoTime();
+
+  /**
+   * @param members the analytics to pool; each must be safe to run on a different
+   * thread than the others, e.g. from {@link ConcreteStanfordPreCorefAnalytic#replicate()}
+   * @param timeoutMillis how long a request waits for an idle analytic before failing;
+   * <code>&lt;= 0</code> waits indefinitely
+   */
+  public PooledAnalytic(List<? extends Analytic<T>> members, long timeoutMillis) {
+    if (members.isEmpty())
+      throw new IllegalArgumentException("need >0 analytics");
+    this.members = ImmutableList.copyOf(members);
+    this.idle = new ArrayBlockingQueue<>(this.members.size(), false, this.members);
+    this.timeoutMillis = timeoutMillis;
+    LOGGER.info("Pooling {} instances of {}", this.members.size(), this.members.get(0).getToolName());
+  }
+
+  /**
+   * @return the number of analytics in the pool
+   */
+  public int getSize() {
+    return this.members.size();
+  }
+
+  /**
+   * @return the number of analytics not currently leased
+   */
+  public int getIdle() {
+    return this.idle.size();
+  }
+
+  /**
+   * @return the share, between 0 and 1, of the pool's lifetime that its analytics were busy
+   */
+  public double getUtilization() {
+    final long elapsed = System.nanoTime() - this.createdNanos;
+    return elapsed <= 0L ? 0d : this.busyNanos.sum() / ((double) elapsed * this.members.size());
+  }
+
+  private Analytic<T> lease() throws AnalyticException {
+    try {
+      if (this.timeoutMillis <= 0L)
+        return this.idle.take();
+      Analytic<T> a = this.idle.poll(this.timeoutMillis, TimeUnit.MILLISECONDS);
+      if (a == null) {
+        this.stats.increment("pool.timeouts");
+        throw new AnalyticException("No analytic became available within " + this.timeoutMillis + " ms");
+      }
+      return a;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AnalyticException("Interrupted while waiting for an analytic", e);
+    }
+  }
+
+  /**
+   * Work done with a leased analytic.
+   */
+  @FunctionalInterface
+  public interface Lease<T extends WrappedCommunication, R> {
+    R apply(Analytic<T> analytic) throws AnalyticException;
+  }
+
+  /**
+   * Leases an analytic for the duration of <code>f</code>, e.g. to call a
+   * method that is not part of {@link Analytic}.
+   *
+   * @param f the work to do with the analytic; it must not keep the analytic
+   * @return the result of <code>f</code>
+   * @throws AnalyticException if <code>f</code> fails, or no analytic becomes available in time
+   */
+  public <R> R withAnalytic(Lease<T, R> f) throws AnalyticException {
+    final long requested = System.nanoTime();
+    final Analytic<T> a = this.lease();
+    final long leased = System.nanoTime();
+    this.stats.increment("pool.leases");
+    this.stats.add("pool.wait.us", (leased - requested) / 1000L);
+    try {
+      return f.apply(a);
+    } finally {
+      final long busy = System.nanoTime() - leased;
+      this.busyNanos.add(busy);
+      this.stats.add("pool.busy.us", busy / 1000L);
+      this.idle.add(a);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see edu.jhu.hlt.concrete.analytics.base.Analytic#annotate(edu.jhu.hlt.concrete.Communication)
+   */
+  @Override
+  public T annotate(Communication c) throws AnalyticException {
+    return this.withAnalytic(a -> a.annotate(c));
+  }
+
+  /**
+   * @return a snapshot of the pool's statistics, and those of its analytics
+   */
+  @Override
+  public RunStatistics getStatistics() {
+    RunStatistics rs = new RunStatistics();
+    rs.addAll(this.stats);
+    rs.add("pool.size", this.members.size());
+    rs.add("pool.utilization.percent", Math.round(this.getUtilization() * 100d));
+    // replicas may share one RunStatistics
+    Set<RunStatistics> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Analytic<T> a : this.members)
+      if (a instanceof StatisticsReporting && seen.add(((StatisticsReporting) a).getStatistics()))
+        rs.addAll(((StatisticsReporting) a).getStatistics());
+    return rs;
+  }
+
+  /* (non-Javadoc)
+   * @see edu.jhu.hlt.concrete.safe.metadata.SafeAnnotationMetadata#getTimestamp()
+   */
+  @Override
+  public long getTimestamp() {
+    return this.members.get(0).getTimestamp();
+  }
+
+  /* (non-Javadoc)
+   * @see edu.jhu.hlt.concrete.metadata.tools.MetadataTool#getToolName()
+   */
+  @Override
+  public String getToolName() {
+    return this.members.get(0).getToolName();
+  }
+
+  /* (non-Javadoc)
+   * @see edu.jhu.hlt.concrete.metadata.tools.MetadataTool#getToolVersion()
+   */
+  @Override
+  public String getToolVersion() {
+    return this.members.get(0).getToolVersion();
+  }
+
+  /* (non-Javadoc)
+   * @see edu.jhu.hlt.concrete.metadata.tools.MetadataTool#getToolNotes()
+   */
+  @Override
+  public List<String> getToolNotes() {
+    return this.members.get(0).getToolNotes();
+  }
+}
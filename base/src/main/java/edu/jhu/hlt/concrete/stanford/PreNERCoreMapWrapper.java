@@ -5,14 +5,15 @@
 
 package edu.jhu.hlt.concrete.stanford;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import edu.jhu.hlt.concrete.AnnotationMetadata;
 import edu.jhu.hlt.concrete.Constituent;
 import edu.jhu.hlt.concrete.Dependency;
 import edu.jhu.hlt.concrete.DependencyParse;
@@ -21,9 +22,10 @@ import edu.jhu.hlt.concrete.Sentence;
 import edu.jhu.hlt.concrete.Tokenization;
 import edu.jhu.hlt.concrete.UUID;
 import edu.jhu.hlt.concrete.analytics.base.AnalyticException;
+import edu.jhu.hlt.concrete.stanford.languages.DependencyRepresentation;
+import edu.jhu.hlt.concrete.stanford.languages.ParseFallback;
 import edu.jhu.hlt.concrete.tokenization.DependencyFactory;
 import edu.jhu.hlt.concrete.tokenization.ParseFactory;
-import edu.jhu.hlt.concrete.util.Timing;
 import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory.AnalyticUUIDGenerator;
 import edu.stanford.nlp.ling.IndexedWord;
 import edu.stanford.nlp.semgraph.SemanticGraph;
@@ -31,7 +33,6 @@ import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations.BasicDependenciesA
 import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation;
 import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations.CollapsedDependenciesAnnotation;
 import edu.stanford.nlp.semgraph.SemanticGraphEdge;
-import edu.stanford.nlp.trees.GrammaticalRelation;
 import edu.stanford.nlp.trees.HeadFinder;
 import edu.stanford.nlp.trees.Tree;
 import edu.stanford.nlp.trees.TreeCoreAnnotations.TreeAnnotation;
@@ -49,118 +50,150 @@ public class PreNERCoreMapWrapper {
   private final Optional<SemanticGraph> basicDeps;
   private final Optional<SemanticGraph> colDeps;
   private final Optional<SemanticGraph> colCCDeps;
+  private final Optional<ParseFallback> fallback;
 
   private final HeadFinder hf;
-  private final AnalyticUUIDGenerator gen;
+  private final ConversionContext ctx;
 
   /**
    *
    */
   public PreNERCoreMapWrapper(final CoreMap cm, final HeadFinder hf, final AnalyticUUIDGenerator gen) {
-    this.wrapper = new CoreMapWrapper(cm, gen);
+    this(cm, hf, new ConversionContext(gen));
+  }
+
+  /**
+   * @param cm the sentence to convert
+   * @param hf the {@link HeadFinder} used to set constituents' head children
+   * @param ctx the {@link ConversionContext} of the sentence's document
+   */
+  PreNERCoreMapWrapper(final CoreMap cm, final HeadFinder hf, final ConversionContext ctx) {
+    this.wrapper = new CoreMapWrapper(cm, ctx);
     this.hf = hf;
     this.tree = Optional.ofNullable(cm.get(TreeAnnotation.class));
     this.basicDeps = Optional.ofNullable(cm.get(BasicDependenciesAnnotation.class));
     this.colDeps = Optional.ofNullable(cm.get(CollapsedDependenciesAnnotation.class));
     this.colCCDeps = Optional.ofNullable(cm.get(CollapsedCCProcessedDependenciesAnnotation.class));
-    this.gen = gen;
+    this.fallback = Optional.ofNullable(cm.get(ParseAdmission.ParseFallbackAnnotation.class));
+    this.ctx = ctx;
   }
 
   /**
-   * Whenever there's an empty parse, this method will set the required
-   * constituent list to be an empty list. It's up to the caller on what to do
-   * with the returned Parse.
+   * Converts the tree to a {@link Parse}, with at least the root constituent.
+   * <br>
+   * <br>
+   * If the sentence was too long to parse, the tool name records the fallback
+   * that produced the tree.
    *
    * @param n
    *          is the number of tokens in the sentence
    *
    * @throws AnalyticException
    */
-  private Parse makeConcreteCParse(Tree root, int n, UUID tokenizationUUID, HeadFinder hf) throws AnalyticException {
-    int left = 0;
-    int right = root.getLeaves().size();
-    if (right != n)
-      throw new AnalyticException("number of leaves in the parse (" + right + ") is not equal to the number of tokens in the sentence (" + n + ")");
-
-    Parse p = new ParseFactory(this.gen).create();
-    AnnotationMetadata md = new AnnotationMetadata("Stanford CoreNLP", Timing.currentLocalTime(), 1);
-    p.setMetadata(md);
-    constructConstituent(root, left, right, n, p, tokenizationUUID, hf);
-    if (!p.isSetConstituentList()) {
-      LOGGER.warn("Setting constituent list to compensate for the empty parse for tokenization id {} and tree {}", tokenizationUUID, root);
-      p.setConstituentList(new ArrayList<Constituent>());
-    }
+  private Parse makeConcreteCParse(Tree root, int n, HeadFinder hf) throws AnalyticException {
+    Parse p = new ParseFactory(this.ctx.getGenerator()).create();
+    p.setMetadata(this.ctx.getMetadata(this.withFallback("Stanford CoreNLP")));
+    p.setConstituentList(constructConstituents(root, n, hf));
     return p;
   }
 
   /**
-  *
-  * @param root
-  * @param left
-  * @param right
-  * @param n
-  *          is the length of the sentence is tokens.
-  * @param p
-  * @param tokenizationUUID
-  * @return The constituent ID
-  * @throws AnalyticException
-  */
- private static int constructConstituent(Tree root, int left,
-     int right, int n, Parse p, UUID tokenizationUUID, HeadFinder hf)
-     throws AnalyticException {
-
-   Constituent constituent = new Constituent();
-   constituent.setId(p.getConstituentListSize());
-   constituent.setTag(root.value());
-   constituent.setStart(left);
-   constituent.setEnding(right);
-   p.addToConstituentList(constituent);
-   Tree headTree = null;
-   if (!root.isLeaf()) {
-     try {
-       headTree = hf.determineHead(root);
-     } catch (java.lang.IllegalArgumentException iae) {
-       LOGGER.warn("Failed to find head, falling back on rightmost constituent.");
-       headTree = root.children()[root.numChildren() - 1];
-     }
-   }
-   int i = 0, headTreeIdx = -1;
-
-   int leftPtr = left;
-   for (Tree child : root.getChildrenAsList()) {
-     int width = child.getLeaves().size();
-     int childId = constructConstituent(child, leftPtr, leftPtr
-         + width, n, p, tokenizationUUID, hf);
-     constituent.addToChildList(childId);
-
-     leftPtr += width;
-     if (headTree != null && child == headTree) {
-       assert (headTreeIdx < 0);
-       headTreeIdx = i;
-     }
-     i++;
-   }
-
-   if (headTreeIdx >= 0)
-     constituent.setHeadChildIndex(headTreeIdx);
-
-   if (!constituent.isSetChildList())
-     constituent.setChildList(new ArrayList<Integer>());
-   return constituent.getId();
- }
+   * Converts a tree to constituents in a single pass, without recursion.
+   * <br>
+   * <br>
+   * Constituents are numbered in pre-order. Each node's span starts at the
+   * number of leaves seen when the node is entered, and ends at the number
+   * seen when it is left; leaves are themselves constituents of width one.
+   *
+   * @param root the tree to convert
+   * @param n the number of tokens in the sentence
+   * @param hf the {@link HeadFinder} used to set each constituent's head child
+   * @return the constituents, indexed by their IDs
+   * @throws AnalyticException if the number of leaves of the tree is not <code>n</code>
+   */
+  static List<Constituent> constructConstituents(Tree root, int n, HeadFinder hf) throws AnalyticException {
+    List<Constituent> constituents = new ArrayList<>();
+    Deque<Frame> stack = new ArrayDeque<>();
+    int leaves = 0;
+    stack.push(new Frame(root, newConstituent(root, constituents, leaves), hf));
+    while (!stack.isEmpty()) {
+      Frame f = stack.peek();
+      Tree[] kids = f.tree.children();
+      if (f.next < kids.length) {
+        Tree child = kids[f.next];
+        if (child == f.head)
+          f.constituent.setHeadChildIndex(f.next);
+        f.next++;
+        Constituent c = newConstituent(child, constituents, leaves);
+        f.constituent.addToChildList(c.getId());
+        stack.push(new Frame(child, c, hf));
+      } else {
+        if (f.tree.isLeaf())
+          leaves++;
+        f.constituent.setEnding(leaves);
+        stack.pop();
+      }
+    }
+
+    if (leaves != n)
+      throw new AnalyticException("number of leaves in the parse (" + leaves + ") is not equal to the number of tokens in the sentence (" + n + ")");
+    return constituents;
+  }
+
+  private static Constituent newConstituent(Tree t, List<Constituent> constituents, int start) {
+    Constituent c = new Constituent();
+    c.setId(constituents.size());
+    c.setTag(t.value());
+    c.setStart(start);
+    c.setChildList(new ArrayList<Integer>(t.numChildren()));
+    constituents.add(c);
+    return c;
+  }
+
+  /**
+   * A node being converted, and the index of its next child.
+   */
+  private static class Frame {
+    private final Tree tree;
+    private final Constituent constituent;
+    private final Tree head;
+    private int next = 0;
+
+    private Frame(Tree tree, Constituent constituent, HeadFinder hf) {
+      this.tree = tree;
+      this.constituent = constituent;
+      this.head = tree.isLeaf() ? null : head(tree, hf);
+    }
+  }
+
+  private static Tree head(Tree t, HeadFinder hf) {
+    try {
+      return hf.determineHead(t);
+    } catch (java.lang.IllegalArgumentException iae) {
+      LOGGER.warn("Failed to find head, falling back on rightmost constituent.");
+      return t.children()[t.numChildren() - 1];
+    }
+  }
+
+  private String withFallback(String toolName) {
+    return this.fallback.map(f -> toolName + " (parse fallback: " + f.toString() + ")").orElse(toolName);
+  }
 
   private List<DependencyParse> constructDependencyParses(UUID tokUuid) throws AnalyticException {
     List<DependencyParse> depParseList = new ArrayList<>();
+    // fallback trees carry no dependency information
+    if (this.fallback.map(f -> f.producesConstituents()).orElse(false))
+      return depParseList;
     // possibly add a check if sg.size() == 0
-    this.basicDeps.ifPresent(sg -> {
+    this.basicDeps.filter(sg -> this.ctx.isSelected(DependencyRepresentation.BASIC)).ifPresent(sg -> {
       LOGGER.debug("Generating DependencyParse from basic dependencies.");
       depParseList.add(this.makeDepParse(sg, tokUuid, "Stanford CoreNLP basic"));
     });
-    this.colDeps.ifPresent(sg -> {
+    this.colDeps.filter(sg -> this.ctx.isSelected(DependencyRepresentation.COLLAPSED)).ifPresent(sg -> {
       LOGGER.debug("Generating DependencyParse from collapsed dependencies.");
       depParseList.add(this.makeDepParse(sg, tokUuid, "Stanford CoreNLP col"));
     });
-    this.colCCDeps.ifPresent(sg -> {
+    this.colCCDeps.filter(sg -> this.ctx.isSelected(DependencyRepresentation.COLLAPSED_CC)).ifPresent(sg -> {
       LOGGER.debug("Generating DependencyParse from collapsed-CC dependencies.");
       depParseList.add(this.makeDepParse(sg, tokUuid, "Stanford CoreNLP col-CC"));
     });
@@ -170,25 +203,24 @@ public class PreNERCoreMapWrapper {
 
   private DependencyParse makeDepParse(SemanticGraph semGraph, UUID tokenizationUUID, String toolName) {
     DependencyParse depParse = new DependencyParse();
-    depParse.setUuid(this.gen.next());
-    AnnotationMetadata md = new AnnotationMetadata(toolName, Timing.currentLocalTime(), 1);
-    depParse.setMetadata(md);
+    depParse.setUuid(this.ctx.getGenerator().next());
+    depParse.setMetadata(this.ctx.getMetadata(this.withFallback(toolName)));
     List<Dependency> dependencies = makeDependencies(semGraph);
     depParse.setDependencyList(dependencies);
     return depParse;
   }
 
   private List<Dependency> makeDependencies(SemanticGraph graph) {
-    List<Dependency> depList = new ArrayList<Dependency>();
+    List<Dependency> depList = new ArrayList<Dependency>(graph.size() + 1);
     for (IndexedWord root : graph.getRoots()) {
       // this mimics CoreNLP's handling
-      String rel = GrammaticalRelation.ROOT.getLongName().replaceAll("\\s+", "");
+      String rel = this.ctx.getRootRelation();
       int dep = root.index() - 1;
       Dependency depend = DependencyFactory.create(dep, rel);
       depList.add(depend);
     }
     for (SemanticGraphEdge edge : graph.edgeListSorted()) {
-      String rel = edge.getRelation().toString().replaceAll("\\s+", "");
+      String rel = this.ctx.getRelation(edge.getRelation());
       int gov = edge.getSource().index() - 1;
       int dep = edge.getTarget().index() - 1;
       Dependency depend = DependencyFactory.create(dep, rel, gov);
@@ -221,8 +253,8 @@ public class PreNERCoreMapWrapper {
     List<DependencyParse> dpList = this.constructDependencyParses(tkzID);
     dpList.forEach(dp -> newTkz.addToDependencyParseList(dp));
     // cannot use functional style here b/c of checked ex.
-    if (this.tree.isPresent()) {
-      Parse p = makeConcreteCParse(tree.get(), newTkz.getTokenList().getTokenListSize(), tkzID, this.hf);
+    if (this.tree.isPresent() && this.fallback.map(f -> f.producesConstituents()).orElse(true)) {
+      Parse p = makeConcreteCParse(tree.get(), newTkz.getTokenList().getTokenListSize(), this.hf);
       newTkz.addToParseList(p);
     }
   }
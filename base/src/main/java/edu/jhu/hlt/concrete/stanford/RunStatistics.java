@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * Named counters accumulated over the lifetime of an analytic,
+ * e.g. the number of sentences that were not parsed because they were too long.
+ * <br>
+ * <br>
+ * Safe to update from multiple threads.
+ */
+public class RunStatistics {
+
+  private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+  /**
+   * @param key the counter to increment by one
+   */
+  public void increment(String key) {
+    this.add(key, 1L);
+  }
+
+  /**
+   * @param key the counter to update
+   * @param n the amount to add to the counter
+   */
+  public void add(String key, long n) {
+    this.counters.computeIfAbsent(key, k -> new LongAdder()).add(n);
+  }
+
+  /**
+   * @param key the counter to get
+   * @return the current value of the counter, or <code>0</code> if it was never updated
+   */
+  public long get(String key) {
+    LongAdder a = this.counters.get(key);
+    return a == null ? 0L : a.sum();
+  }
+
+  /**
+   * @param other a {@link RunStatistics} whose counters should be added to this object's
+   */
+  public void addAll(RunStatistics other) {
+    other.snapshot().forEach(this::add);
+  }
+
+  /**
+   * @return the current value of every counter, sorted by name
+   */
+  public ImmutableSortedMap<String, Long> snapshot() {
+    ImmutableSortedMap.Builder<String, Long> b = ImmutableSortedMap.naturalOrder();
+    this.counters.forEach((k, v) -> b.put(k, v.sum()));
+    return b.build();
+  }
+
+  /**
+   * Log every counter at <code>INFO</code>.
+   *
+   * @param logger the {@link Logger} to use
+   */
+  public void log(Logger logger) {
+    this.snapshot().forEach((k, v) -> logger.info("{}: {}", k, v));
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.jhu.hlt.concrete.Section;
+import edu.jhu.hlt.concrete.TextSpan;
+
+/**
+ * Decides which sections of a communication are worth tokenizing: those with
+ * text other than whitespace, whose kind is not on the skip list set by
+ * {@link #SKIP_KINDS_PROPERTY}.
+ * <br>
+ * <br>
+ * Blank sections are found by scanning the communication text in place, without
+ * copying the section's text. Whitespace is any character trimmed by
+ * {@link String#trim()}, {@link Character#isWhitespace(int)} or
+ * {@link Character#isSpaceChar(int)}; and any HTML entity for one: numeric
+ * entities such as <code>&amp;#160;</code> and <code>&amp;#x2003;</code>, and
+ * the named entities in {@link #SPACE_ENTITIES}.
+ */
+class SectionFilter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SectionFilter.class);
+
+  /**
+   * The kinds of section not to tokenize, comma-separated.
+   */
+  static final String SKIP_KINDS_PROPERTY = "concrete.sections.skip";
+
+  /**
+   * The names of the HTML entities for whitespace, in lower case. Matched
+   * ignoring case, in place.
+   */
+  static final ImmutableList<String> SPACE_ENTITIES = ImmutableList.of("nbsp", "ensp", "emsp", "emsp13", "emsp14",
+      "numsp", "puncsp", "thinsp", "hairsp", "mediumspace", "tab", "newline");
+
+  /**
+   * How far past an <code>&amp;</code> to look for the <code>;</code> ending an entity.
+   */
+  private static final int MAX_ENTITY_LENGTH = 16;
+
+  private final Set<String> skippedKinds;
+
+  private SectionFilter(Set<String> skippedKinds) {
+    this.skippedKinds = skippedKinds;
+  }
+
+  /**
+   * @param props the pipeline {@link Properties}
+   * @return a {@link SectionFilter} that skips the kinds set by {@link #SKIP_KINDS_PROPERTY}, if any
+   */
+  static SectionFilter fromProperties(Properties props) {
+    Set<String> kinds = new HashSet<>();
+    for (String k : props.getProperty(SKIP_KINDS_PROPERTY, "").split(","))
+      if (!k.trim().isEmpty())
+        kinds.add(k.trim());
+    if (!kinds.isEmpty())
+      LOGGER.info("Sections of these kinds will not be tokenized: {}", kinds);
+    return new SectionFilter(Collections.unmodifiableSet(kinds));
+  }
+
+  /**
+   * @param s the {@link Section} to check
+   * @param text the communication text
+   * @param docId the communication's ID, for logging
+   * @return <code>true</code> if the section should be tokenized
+   */
+  boolean accept(Section s, String text, String docId) {
+    if (s.isSetKind() && this.skippedKinds.contains(s.getKind()))
+      return false;
+    final TextSpan ts = s.getTextSpan();
+    final int b = ts.getStart();
+    final int e = ts.getEnding();
+    if (e < b) {
+      LOGGER.warn("Invalid text span: end is less than start. Document: {}; TextSpan: {}", docId, ts.toString());
+      return false;
+    }
+    return !isBlank(text, b, e);
+  }
+
+  /**
+   * @param text the text to scan
+   * @param begin the start of the span, inclusive
+   * @param end the end of the span, exclusive
+   * @return <code>true</code> if the span is empty, or holds only whitespace and
+   * whitespace entities
+   */
+  static boolean isBlank(String text, int begin, int end) {
+    int i = begin;
+    while (i < end) {
+      final char c = text.charAt(i);
+      if (isSpace(c)) {
+        i++;
+      } else if (c == '&') {
+        final int len = entityLength(text, i, end);
+        if (len == 0)
+          return false;
+        i += len;
+      } else {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isSpace(int c) {
+    return c <= ' ' || Character.isWhitespace(c) || Character.isSpaceChar(c);
+  }
+
+  /**
+   * Reads the entity in place: neither its name nor its digits are copied.
+   *
+   * @return the length of the whitespace entity at <code>i</code>, or 0 if there is none
+   */
+  private static int entityLength(String text, int i, int end) {
+    final int semi = text.indexOf(';', i + 1);
+    if (semi < 0 || semi >= end || semi - i > MAX_ENTITY_LENGTH)
+      return 0;
+    final int nameStart = i + 1;
+    final int nameLength = semi - nameStart;
+    if (nameLength > 0 && text.charAt(nameStart) == '#') {
+      final boolean hex = nameLength > 1 && (text.charAt(nameStart + 1) == 'x' || text.charAt(nameStart + 1) == 'X');
+      final int radix = hex ? 16 : 10;
+      final int first = nameStart + (hex ? 2 : 1);
+      if (first == semi)
+        return 0;
+      int cp = 0;
+      for (int j = first; j < semi; j++) {
+        final int d = Character.digit(text.charAt(j), radix);
+        if (d < 0)
+          return 0;
+        cp = cp * radix + d;
+        if (cp > Character.MAX_CODE_POINT)
+          return 0;
+      }
+      return isSpace(cp) ? semi - i + 1 : 0;
+    }
+    // indexed loop: no iterator
+    for (int k = 0; k < SPACE_ENTITIES.size(); k++) {
+      final String name = SPACE_ENTITIES.get(k);
+      if (name.length() == nameLength && text.regionMatches(true, nameStart, name, 0, nameLength))
+        return semi - i + 1;
+    }
+    return 0;
+  }
+}
@@ -4,10 +4,16 @@
  */
 package edu.jhu.hlt.concrete.stanford;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
 import edu.jhu.hlt.concrete.Communication;
 import edu.jhu.hlt.concrete.DependencyParse;
 import edu.jhu.hlt.concrete.Entity;
@@ -18,6 +24,7 @@ import edu.jhu.hlt.concrete.Section;
 import edu.jhu.hlt.concrete.Sentence;
 import edu.jhu.hlt.concrete.TokenTagging;
 import edu.jhu.hlt.concrete.Tokenization;
+import edu.jhu.hlt.concrete.UUID;
 import edu.jhu.hlt.concrete.miscommunication.MiscommunicationException;
 import edu.jhu.hlt.concrete.miscommunication.depparsed.DependencyParsedCommunication;
 import edu.jhu.hlt.concrete.miscommunication.entitied.EntitiedCommunication;
@@ -31,6 +38,10 @@ import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
  * Class representing a typed {@link Communication} that is produced by the Stanford pipeline
  * when run on either Communications with {@link Section}s and no {@link Sentence}s, or Communications
  * with Sections and Sentences but no {@link Tokenization}s.
+ * <br>
+ * <br>
+ * Entities, mentions, taggings and parses are indexed on first request, and
+ * returned as read-only lists that are not copied.
  */
 public class StanfordPostNERCommunication implements TokenizedCommunication, EntitiedCommunication, EntityMentionedCommunication,
     DependencyParsedCommunication, NamedEntityTaggedCommunication, PartOfSpeechTaggedCommunication, LemmatizedCommunication {
@@ -40,8 +51,11 @@ public class StanfordPostNERCommunication implements TokenizedCommunication, Ent
   private final EntityMentionSet ems;
   private final EntitySet es;
 
-  private final List<EntityMention> emList = new ArrayList<>();
-  private final List<Entity> entityList = new ArrayList<>();
+  // built on first use
+  private final Supplier<ImmutableList<EntityMention>> emList;
+  private final Supplier<ImmutableList<Entity>> entityList;
+  private final Supplier<ImmutableMap<UUID, EntityMention>> emsByUuid;
+  private final Supplier<ImmutableMap<UUID, Entity>> entitiesByUuid;
 
   /**
    *
@@ -62,8 +76,59 @@ public class StanfordPostNERCommunication implements TokenizedCommunication, Ent
       throw new MiscommunicationException("No Stanford EntitySet was found in this communication [ID: " + c.getId() + "]");
     this.es = stanfordES.get();
 
-    c.getEntityMentionSetList().forEach(ems -> this.emList.addAll(ems.getMentionList()));
-    c.getEntitySetList().forEach(es -> this.entityList.addAll(es.getEntityList()));
+    this.emList = Suppliers.memoize(() -> {
+      ImmutableList.Builder<EntityMention> b = ImmutableList.builder();
+      c.getEntityMentionSetList().forEach(ems -> b.addAll(ems.getMentionList()));
+      return b.build();
+    });
+    this.entityList = Suppliers.memoize(() -> {
+      ImmutableList.Builder<Entity> b = ImmutableList.builder();
+      c.getEntitySetList().forEach(es -> b.addAll(es.getEntityList()));
+      return b.build();
+    });
+    this.emsByUuid = Suppliers.memoize(() -> {
+      Map<UUID, EntityMention> m = new HashMap<>();
+      this.emList.get().forEach(em -> m.putIfAbsent(em.getUuid(), em));
+      return ImmutableMap.copyOf(m);
+    });
+    this.entitiesByUuid = Suppliers.memoize(() -> {
+      Map<UUID, Entity> m = new HashMap<>();
+      this.entityList.get().forEach(e -> m.putIfAbsent(e.getUuid(), e));
+      return ImmutableMap.copyOf(m);
+    });
+  }
+
+  /**
+   * @param taggingType the tagging type, e.g. <code>POS</code>; case-insensitive
+   * @return a read-only list of the {@link TokenTagging}s of that type, in document order
+   * @see StanfordPreNERCommunication#getTaggings(String)
+   */
+  public List<TokenTagging> getTaggings(final String taggingType) {
+    return this.preNER.getTaggings(taggingType);
+  }
+
+  /**
+   * @param uuid the UUID of a {@link Tokenization}
+   * @return the {@link Tokenization}, if this communication has it
+   */
+  public Optional<Tokenization> getTokenization(final UUID uuid) {
+    return this.preNER.getTokenization(uuid);
+  }
+
+  /**
+   * @param uuid the UUID of an {@link EntityMention}
+   * @return the {@link EntityMention}, if any of this communication's {@link EntityMentionSet}s has it
+   */
+  public Optional<EntityMention> getEntityMention(final UUID uuid) {
+    return Optional.ofNullable(this.emsByUuid.get().get(uuid));
+  }
+
+  /**
+   * @param uuid the UUID of an {@link Entity}
+   * @return the {@link Entity}, if any of this communication's {@link EntitySet}s has it
+   */
+  public Optional<Entity> getEntity(final UUID uuid) {
+    return Optional.ofNullable(this.entitiesByUuid.get().get(uuid));
   }
 
   /* (non-Javadoc)
@@ -119,7 +184,7 @@ public class StanfordPostNERCommunication implements TokenizedCommunication, Ent
    */
   @Override
   public List<EntityMention> getEntityMentions() {
-    return new ArrayList<>(this.emList);
+    return this.emList.get();
   }
 
   /* (non-Javadoc)
@@ -127,7 +192,7 @@ public class StanfordPostNERCommunication implements TokenizedCommunication, Ent
    */
   @Override
   public List<Entity> getEntities() {
-    return new ArrayList<>(this.entityList);
+    return this.entityList.get();
   }
 
   /* (non-Javadoc)
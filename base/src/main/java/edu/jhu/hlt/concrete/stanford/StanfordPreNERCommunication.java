@@ -4,9 +4,17 @@
  */
 package edu.jhu.hlt.concrete.stanford;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 
 import edu.jhu.hlt.concrete.Communication;
 import edu.jhu.hlt.concrete.DependencyParse;
@@ -14,6 +22,7 @@ import edu.jhu.hlt.concrete.Section;
 import edu.jhu.hlt.concrete.Sentence;
 import edu.jhu.hlt.concrete.TokenTagging;
 import edu.jhu.hlt.concrete.Tokenization;
+import edu.jhu.hlt.concrete.UUID;
 import edu.jhu.hlt.concrete.miscommunication.MiscommunicationException;
 import edu.jhu.hlt.concrete.miscommunication.depparsed.DependencyParsedCommunication;
 import edu.jhu.hlt.concrete.miscommunication.lemma.LemmatizedCommunication;
@@ -26,43 +35,67 @@ import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
  * Class representing a typed {@link Communication} that is produced by the Stanford pipeline
  * when run on either Communications with {@link Section}s and no {@link Sentence}s, or Communications
  * with Sections and Sentences but no {@link Tokenization}s.
+ * <br>
+ * <br>
+ * Taggings and parses are indexed on first request, and returned as read-only
+ * lists that are not copied.
  */
 public class StanfordPreNERCommunication implements TokenizedCommunication,
     DependencyParsedCommunication, NamedEntityTaggedCommunication, PartOfSpeechTaggedCommunication, LemmatizedCommunication {
 
   private final CachedTokenizationCommunication ctc;
 
-  private final List<TokenTagging> nerTTList;
-  private final List<TokenTagging> lemmaTTList;
-  private final List<TokenTagging> posTTList;
-  private final List<DependencyParse> depParseList;
+  // indexes, built on first use
+  private final Supplier<ImmutableListMultimap<String, TokenTagging>> taggingsByType;
+  private final Supplier<ImmutableList<DependencyParse>> depParses;
+  private final Supplier<ImmutableMap<UUID, Tokenization>> tokenizationsByUuid;
 
   /**
    *
    */
   StanfordPreNERCommunication(final Communication c) throws MiscommunicationException {
     this.ctc = new CachedTokenizationCommunication(c);
-    final List<TokenTagging> ttList = new ArrayList<TokenTagging>();
-    List<Tokenization> tkzList = this.ctc.getTokenizations();
-    tkzList.stream().filter(tkz -> tkz.isSetTokenTaggingList())
-        .forEach(tkz -> ttList.addAll(tkz.getTokenTaggingList()));
-
-    this.posTTList = ttList.stream()
-        .filter(tt -> tt.getTaggingType().equalsIgnoreCase("POS"))
-        .collect(Collectors.toList());
-
-    this.nerTTList = ttList.stream()
-        .filter(tt -> tt.getTaggingType().equalsIgnoreCase("NER"))
-        .collect(Collectors.toList());
-
-    this.lemmaTTList = ttList.stream()
-        .filter(tt -> tt.getTaggingType().equalsIgnoreCase("lemma"))
-        .collect(Collectors.toList());
-
-    this.depParseList = new ArrayList<>();
-    this.ctc.getTokenizations().stream()
-        .filter(tkz -> tkz.isSetDependencyParseList())
-        .forEach(tkz -> this.depParseList.addAll(tkz.getDependencyParseList()));
+    this.taggingsByType = Suppliers.memoize(() -> {
+      ImmutableListMultimap.Builder<String, TokenTagging> b = ImmutableListMultimap.builder();
+      for (Tokenization tkz : this.ctc.getTokenizations())
+        if (tkz.isSetTokenTaggingList())
+          for (TokenTagging tt : tkz.getTokenTaggingList())
+            b.put(typeKey(tt.getTaggingType()), tt);
+      return b.build();
+    });
+    this.depParses = Suppliers.memoize(() -> {
+      ImmutableList.Builder<DependencyParse> b = ImmutableList.builder();
+      for (Tokenization tkz : this.ctc.getTokenizations())
+        if (tkz.isSetDependencyParseList())
+          b.addAll(tkz.getDependencyParseList());
+      return b.build();
+    });
+    this.tokenizationsByUuid = Suppliers.memoize(() -> {
+      Map<UUID, Tokenization> m = new HashMap<>();
+      for (Tokenization tkz : this.ctc.getTokenizations())
+        m.putIfAbsent(tkz.getUuid(), tkz);
+      return ImmutableMap.copyOf(m);
+    });
+  }
+
+  private static String typeKey(final String taggingType) {
+    return taggingType.toUpperCase(Locale.ENGLISH);
+  }
+
+  /**
+   * @param taggingType the tagging type, e.g. <code>POS</code>; case-insensitive
+   * @return a read-only list of the {@link TokenTagging}s of that type, in document order
+   */
+  public List<TokenTagging> getTaggings(final String taggingType) {
+    return this.taggingsByType.get().get(typeKey(taggingType));
+  }
+
+  /**
+   * @param uuid the UUID of a {@link Tokenization}
+   * @return the {@link Tokenization}, if this communication has it
+   */
+  public Optional<Tokenization> getTokenization(final UUID uuid) {
+    return Optional.ofNullable(this.tokenizationsByUuid.get().get(uuid));
   }
 
   /* (non-Javadoc)
@@ -94,7 +127,7 @@ public class StanfordPreNERCommunication implements TokenizedCommunication,
    */
   @Override
   public List<TokenTagging> getPOSTaggings() {
-    return new ArrayList<>(this.posTTList);
+    return this.getTaggings("POS");
   }
 
   /* (non-Javadoc)
@@ -102,7 +135,7 @@ public class StanfordPreNERCommunication implements TokenizedCommunication,
    */
   @Override
   public List<TokenTagging> getNETaggings() {
-    return new ArrayList<>(this.nerTTList);
+    return this.getTaggings("NER");
   }
 
   /* (non-Javadoc)
@@ -110,7 +143,7 @@ public class StanfordPreNERCommunication implements TokenizedCommunication,
    */
   @Override
   public List<DependencyParse> getDependencyParses() {
-    return new ArrayList<>(this.depParseList);
+    return this.depParses.get();
   }
 
   /* (non-Javadoc)
@@ -126,6 +159,6 @@ public class StanfordPreNERCommunication implements TokenizedCommunication,
    */
   @Override
   public List<TokenTagging> getLemmaTaggings() {
-    return new ArrayList<>(this.lemmaTTList);
+    return this.getTaggings("lemma");
   }
 }
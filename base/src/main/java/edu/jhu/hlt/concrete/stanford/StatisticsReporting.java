@@ -0,0 +1,15 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+/**
+ * Implemented by analytics that keep {@link RunStatistics}.
+ */
+public interface StatisticsReporting {
+  /**
+   * @return the statistics accumulated by this object; updated as it runs
+   */
+  RunStatistics getStatistics();
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.stanford.nlp.dcoref.CorefChain;
+import edu.stanford.nlp.dcoref.CorefCoreAnnotations.CorefChainAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.TextAnnotation;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.Annotator;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.PropertiesUtils;
+
+/**
+ * Runs <code>dcoref</code> on overlapping windows of sentences, rather than on
+ * the whole document, and merges chains that share a mention in an overlap.
+ * <br>
+ * <br>
+ * The cost of <code>dcoref</code> grows faster than linearly with the number
+ * of mentions in a document; windows bound it. Mentions further apart than a
+ * window are not linked, unless a chain of overlapping mentions links them.
+ * The merged chains are set on the document's annotation as a
+ * {@link CorefChains.ChainsAnnotation}; token-level cluster IDs that
+ * <code>dcoref</code> sets are those of the last window that covered the token.
+ */
+class WindowedCoref {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WindowedCoref.class);
+
+  /**
+   * The property that sets the number of sentences in each window. If not set,
+   * or <code>&lt;= 0</code>, coreference runs on whole documents.
+   */
+  static final String WINDOW_PROPERTY = "concrete.coref.window";
+
+  /**
+   * The property that sets the number of sentences consecutive windows share.
+   */
+  static final String OVERLAP_PROPERTY = "concrete.coref.overlap";
+
+  static final int DEFAULT_OVERLAP = 5;
+
+  private final int window;
+  private final int overlap;
+  private final RunStatistics stats;
+
+  WindowedCoref(int window, int overlap, RunStatistics stats) {
+    if (window <= 0)
+      throw new IllegalArgumentException("Window must be positive: " + window);
+    if (overlap < 0 || overlap >= window)
+      throw new IllegalArgumentException("Overlap must be at least 0 and less than the window (" + window + "): " + overlap);
+    this.window = window;
+    this.overlap = overlap;
+    this.stats = stats;
+  }
+
+  /**
+   * @param props the pipeline {@link Properties}
+   * @param stats a {@link RunStatistics} to record window counts in
+   * @return a {@link WindowedCoref}, if {@link #WINDOW_PROPERTY} is positive
+   * @throws IllegalArgumentException if the overlap is negative, or not less than the window
+   */
+  static Optional<WindowedCoref> fromProperties(Properties props, RunStatistics stats) {
+    final int window = PropertiesUtils.getInt(props, WINDOW_PROPERTY, 0);
+    if (window <= 0)
+      return Optional.empty();
+    final int overlap = PropertiesUtils.getInt(props, OVERLAP_PROPERTY, Math.min(DEFAULT_OVERLAP, window / 2));
+    return Optional.of(new WindowedCoref(window, overlap, stats));
+  }
+
+  /**
+   * Run coreference on the annotation, and set the resulting chains on it. Documents
+   * no longer than a window are annotated as a whole, and keep CoreNLP's chains.
+   *
+   * @param dcoref the <code>dcoref</code> annotator
+   * @param anno the annotation of the document
+   */
+  void annotate(Annotator dcoref, Annotation anno) {
+    final List<CoreMap> sentences = anno.get(SentencesAnnotation.class);
+    final int n = sentences.size();
+    if (n <= this.window) {
+      dcoref.annotate(anno);
+      this.stats.increment("coref.windows");
+      return;
+    }
+
+    List<CorefChains.Chain> chains = new ArrayList<>();
+    int windows = 0;
+    for (int start = 0; ; start += this.window - this.overlap) {
+      final int end = Math.min(n, start + this.window);
+      Annotation sub = new Annotation(new ArrayList<>(sentences.subList(start, end)));
+      sub.set(TextAnnotation.class, anno.get(TextAnnotation.class));
+      dcoref.annotate(sub);
+      Map<Integer, CorefChain> found = sub.get(CorefChainAnnotation.class);
+      if (found != null)
+        chains.addAll(CorefChains.fromCoreNLP(found, start));
+      windows++;
+      if (end == n)
+        break;
+    }
+
+    List<CorefChains.Chain> merged = CorefChains.merge(chains);
+    LOGGER.debug("Ran coreference on {} windows of {} sentences; merged {} chains into {}", windows, n, chains.size(), merged.size());
+    this.stats.add("coref.windows", windows);
+    this.stats.add("coref.chains.merged", chains.size() - merged.size());
+    anno.set(CorefChains.ChainsAnnotation.class, merged);
+  }
+}
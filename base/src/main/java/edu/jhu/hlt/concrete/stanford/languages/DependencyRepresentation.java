@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.languages;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A Stanford dependency representation, each of which is written as a
+ * {@code DependencyParse} of every parsed sentence. Representations that
+ * are not selected are neither built nor converted.
+ */
+public enum DependencyRepresentation {
+  /**
+   * Basic dependencies, which form a tree over the tokens.
+   */
+  BASIC ("basic"),
+
+  /**
+   * Collapsed dependencies: prepositions and conjunctions are folded into relation names.
+   */
+  COLLAPSED ("collapsed"),
+
+  /**
+   * Collapsed dependencies, with dependencies propagated across conjuncts.
+   */
+  COLLAPSED_CC ("collapsed-cc"),
+  ;
+
+  /**
+   * The property that selects the representations: a comma-separated list of their names.
+   */
+  public static final String PROPERTY = "concrete.dependencies";
+
+  private final String v;
+
+  private DependencyRepresentation(String v) {
+    this.v = v;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Enum#toString()
+   */
+  @Override
+  public String toString() {
+    return this.v;
+  }
+
+  /**
+   * @param reps the representations
+   * @return the value of {@link #PROPERTY} that selects them
+   */
+  public static String toProperty(Collection<DependencyRepresentation> reps) {
+    return reps.stream().map(DependencyRepresentation::toString).collect(Collectors.joining(","));
+  }
+
+  /**
+   * @param props the pipeline {@link Properties}
+   * @return the representations selected by {@link #PROPERTY}, or all of them if it is not set
+   * @throws IllegalArgumentException if a name in the property does not match a representation
+   */
+  public static Set<DependencyRepresentation> fromProperties(Properties props) {
+    final String value = props.getProperty(PROPERTY);
+    if (value == null)
+      return EnumSet.allOf(DependencyRepresentation.class);
+    Set<DependencyRepresentation> reps = EnumSet.noneOf(DependencyRepresentation.class);
+    for (String name : value.split(","))
+      if (!name.trim().isEmpty())
+        reps.add(getEnumeration(name.trim()));
+    return reps;
+  }
+
+  public static final DependencyRepresentation getEnumeration(String v) {
+    final String lower = v.toLowerCase(Locale.ENGLISH);
+    for (DependencyRepresentation r : DependencyRepresentation.values())
+      if (r.toString().equals(lower))
+        return r;
+    throw new IllegalArgumentException("No matching dependency representation for value: " + v);
+  }
+}
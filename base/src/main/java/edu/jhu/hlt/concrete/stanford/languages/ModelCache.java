@@ -0,0 +1,172 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.languages;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.jhu.hlt.concrete.stanford.ProjectConstants;
+import edu.stanford.nlp.pipeline.DefaultPaths;
+
+/**
+ * A local directory of models extracted from the classpath and decompressed.
+ * <br>
+ * <br>
+ * Loading a model from the models jar pays for a zip lookup and decompression
+ * on every start. When {@link #PROPERTY} is set, the model resources that the
+ * pipeline properties reference are extracted, once, to
+ * <code>&lt;cache&gt;/&lt;version&gt;/&lt;resource path&gt;</code>, without
+ * their <code>.gz</code> suffix, and the properties are rewritten to point at
+ * the extracted files. Extraction is atomic, so several processes may share
+ * a cache (e.g. a Docker volume).
+ */
+public class ModelCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ModelCache.class);
+
+  /**
+   * The property that sets the cache directory. If not set, no cache is used.
+   */
+  public static final String PROPERTY = "concrete.models.cache";
+
+  /**
+   * Properties whose values are a comma separated list of model resources.
+   */
+  static final ImmutableList<String> MODEL_PROPERTIES = ImmutableList.of(
+      "pos.model", "ner.model", "parse.model", "depparse.model",
+      "segment.model", "segment.serDictionary");
+
+  private final Path dir;
+
+  /**
+   * @param dir the cache directory
+   */
+  public ModelCache(Path dir) {
+    this.dir = dir.resolve(ProjectConstants.VERSION);
+  }
+
+  /**
+   * @param props pipeline {@link Properties}
+   * @return a {@link ModelCache} for the directory set by {@link #PROPERTY}, if it is set
+   */
+  public static Optional<ModelCache> fromProperties(Properties props) {
+    return Optional.ofNullable(props.getProperty(PROPERTY))
+        .map(s -> new ModelCache(Paths.get(s)));
+  }
+
+  /**
+   * Extract the models referenced by the properties, if they are not already
+   * cached, and point the properties at the cached files. CoreNLP's default
+   * POS and NER models are made explicit, so that they are cached too.
+   *
+   * @param props pipeline {@link Properties} to rewrite
+   * @throws UncheckedIOException on failure to write to the cache
+   */
+  public void apply(Properties props) {
+    setDefaultModels(props);
+    for (String key : MODEL_PROPERTIES) {
+      final String v = props.getProperty(key);
+      if (v == null || v.isEmpty())
+        continue;
+      List<String> cached = new ArrayList<>();
+      for (String resource : v.split(","))
+        cached.add(this.get(resource.trim()).toString());
+      props.setProperty(key, String.join(",", cached));
+    }
+  }
+
+  /**
+   * Make CoreNLP's default POS and NER models explicit, if the annotators
+   * that use them are run without a model set.
+   *
+   * @param props pipeline {@link Properties} to modify
+   */
+  static void setDefaultModels(Properties props) {
+    final String annotators = props.getProperty("annotators", "");
+    if (annotators.contains("pos") && !props.containsKey("pos.model"))
+      props.setProperty("pos.model", DefaultPaths.DEFAULT_POS_MODEL);
+    if (annotators.contains("ner") && !props.containsKey("ner.model"))
+      props.setProperty("ner.model", DefaultPaths.DEFAULT_NER_THREECLASS_MODEL
+          + "," + DefaultPaths.DEFAULT_NER_MUC_MODEL + "," + DefaultPaths.DEFAULT_NER_CONLL_MODEL);
+  }
+
+  /**
+   * @param resource a model on the classpath
+   * @return the path of the cached, decompressed model; or the resource itself,
+   * if it is not on the classpath (e.g. already a file)
+   * @throws UncheckedIOException on failure to write to the cache
+   */
+  Path get(String resource) {
+    final boolean gz = resource.endsWith(".gz");
+    final Path target = this.dir.resolve(gz ? resource.substring(0, resource.length() - 3) : resource);
+    if (Files.exists(target))
+      return target;
+
+    try (InputStream is = ModelCache.class.getClassLoader().getResourceAsStream(resource)) {
+      if (is == null) {
+        LOGGER.debug("Not caching {}; it is not on the classpath", resource);
+        return Paths.get(resource);
+      }
+      StopWatch sw = new StopWatch();
+      sw.start();
+      Files.createDirectories(target.getParent());
+      Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+      try (InputStream in = gz ? new GZIPInputStream(is, 1024 * 64) : is) {
+        Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmp);
+      }
+      sw.stop();
+      LOGGER.info("Cached model {} at {} in {} ms", resource, target, sw.getTime());
+      return target;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Populate a cache with the models of every profile and parser of each language.
+   *
+   * @param args the cache directory, followed by the languages to cache (default: all)
+   */
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      LOGGER.info("Usage: {} /path/to/cache [en] [es] [cn]", ModelCache.class.getName());
+      System.exit(1);
+    }
+
+    ModelCache cache = new ModelCache(Paths.get(args[0]));
+    List<PipelineLanguage> langs = new ArrayList<>();
+    for (int i = 1; i < args.length; i++)
+      langs.add(PipelineLanguage.getEnumeration(args[i]));
+    if (langs.isEmpty())
+      langs.addAll(ImmutableList.copyOf(PipelineLanguage.values()));
+
+    for (PipelineLanguage lang : langs) {
+      LOGGER.info("Caching models for language: {}", lang);
+      cache.apply(lang.getProperties(lang.tokenizationAnnotators()));
+      for (ParserBackend p : ParserBackend.values())
+        if (lang.supportsParser(p))
+          cache.apply(lang.getModelProperties(p));
+    }
+  }
+}
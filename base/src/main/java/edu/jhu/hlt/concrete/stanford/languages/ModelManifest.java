@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.languages;
+
+import java.util.Optional;
+import java.util.Properties;
+
+import com.google.common.collect.ImmutableSortedSet;
+
+import edu.stanford.nlp.ie.regexp.NumberSequenceClassifier;
+import edu.stanford.nlp.util.PropertiesUtils;
+
+/**
+ * The model resources a configured pipeline loads.
+ * <br>
+ * <br>
+ * Each entry is either a resource, or a resource directory whose contents
+ * are all needed (e.g. the <code>dcoref</code> dictionaries); see {@link #matches(String)}.
+ */
+public class ModelManifest {
+
+  /**
+   * The prefix of all resources in the CoreNLP models jars.
+   */
+  public static final String MODELS_PREFIX = "edu/stanford/nlp/models/";
+
+  private static final String SUTIME_DIR = MODELS_PREFIX + "sutime";
+  private static final String DCOREF_DIR = MODELS_PREFIX + "dcoref";
+
+  private final ImmutableSortedSet<String> entries;
+
+  private ModelManifest(ImmutableSortedSet<String> entries) {
+    this.entries = entries;
+  }
+
+  /**
+   * @param lang the language to run
+   * @param profile the profile to run
+   * @param parser the parser to run, overriding the profile's default
+   * @param coref <code>true</code> if coreference will be run, if available
+   * @param overrides properties that override those set by the language and profile
+   * @return the manifest of the pipeline
+   * @throws IllegalArgumentException if the pipeline cannot be configured
+   */
+  public static ModelManifest of(PipelineLanguage lang, PipelineProfile profile, Optional<ParserBackend> parser,
+      boolean coref, Properties overrides) {
+    ImmutableSortedSet.Builder<String> b = ImmutableSortedSet.naturalOrder();
+
+    Properties tokProps = lang.getProperties(lang.tokenizationAnnotators());
+    addModels(tokProps, b);
+    Optional.ofNullable(tokProps.getProperty("segment.sighanCorporaDict")).ifPresent(b::add);
+
+    final Optional<ParserBackend> resolved = profile.getParser(lang, parser);
+    final boolean runsCoref = coref && lang.supportsCoref() && resolved.map(p -> p.producesConstituents()).orElse(false);
+    Properties props = lang.getProperties(profile.annotators(lang.preCorefAnnotators(resolved), overrides),
+        profile, resolved, overrides);
+    addModels(props, b);
+    if (props.getProperty("annotators").contains("ner")
+        && PropertiesUtils.getBool(props, NumberSequenceClassifier.USE_SUTIME_PROPERTY, NumberSequenceClassifier.USE_SUTIME_DEFAULT))
+      b.add(SUTIME_DIR);
+    if (runsCoref)
+      b.add(DCOREF_DIR);
+    return new ModelManifest(b.build());
+  }
+
+  private static void addModels(Properties props, ImmutableSortedSet.Builder<String> b) {
+    ModelCache.setDefaultModels(props);
+    for (String key : ModelCache.MODEL_PROPERTIES) {
+      final String v = props.getProperty(key);
+      if (v == null || v.isEmpty())
+        continue;
+      for (String resource : v.split(","))
+        b.add(resource.trim());
+    }
+  }
+
+  /**
+   * @return the resources and resource directories in this manifest
+   */
+  public ImmutableSortedSet<String> getEntries() {
+    return this.entries;
+  }
+
+  /**
+   * @param resource the path of a resource, e.g. a jar entry name
+   * @return <code>true</code> if the resource is, or is inside, an entry of this manifest
+   */
+  public boolean matches(String resource) {
+    for (String e : this.entries)
+      if (resource.equals(e) || resource.startsWith(e + "/"))
+        return true;
+    return false;
+  }
+}
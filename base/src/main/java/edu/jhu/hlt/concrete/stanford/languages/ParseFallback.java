@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.languages;
+
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * What to produce for sentences longer than the maximum parse length
+ * ({@link PipelineLanguage#MAX_PARSE_LENGTH_PROPERTY}), which the constituency
+ * parser skips.
+ */
+public enum ParseFallback {
+  /**
+   * A {@code Parse} with a single <code>X</code> constituent over the
+   * part of speech tags. No {@code DependencyParse}s.
+   */
+  FLAT ("flat", true),
+
+  /**
+   * A right-branching {@code Parse} of <code>X</code> constituents over the
+   * part of speech tags. No {@code DependencyParse}s.
+   */
+  RIGHT_BRANCHING ("right-branching", true),
+
+  /**
+   * No {@code Parse}; {@code DependencyParse}s from the neural network
+   * dependency parser, which runs in time linear in the sentence length.
+   * Requires a {@link ParserBackend#NEURAL_DEPENDENCY} model for the language.
+   */
+  DEPENDENCY_ONLY ("dependency-only", false),
+  ;
+
+  /**
+   * The property that selects the fallback.
+   */
+  public static final String PROPERTY = "concrete.parse.fallback";
+
+  private final String v;
+  private final boolean constituents;
+
+  private ParseFallback(String v, boolean constituents) {
+    this.v = v;
+    this.constituents = constituents;
+  }
+
+  /**
+   * @return <code>true</code> if this fallback produces a {@code Parse}
+   */
+  public boolean producesConstituents() {
+    return this.constituents;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Enum#toString()
+   */
+  @Override
+  public String toString() {
+    return this.v;
+  }
+
+  /**
+   * @param props the pipeline {@link Properties}
+   * @return the fallback set by {@link #PROPERTY}, or {@link #FLAT} if it is not set
+   */
+  public static ParseFallback fromProperties(Properties props) {
+    return getEnumeration(props.getProperty(PROPERTY, FLAT.toString()));
+  }
+
+  public static final ParseFallback getEnumeration(String v) {
+    final String lower = v.toLowerCase(Locale.ENGLISH);
+    for (ParseFallback f : ParseFallback.values())
+      if (f.toString().equals(lower))
+        return f;
+    throw new IllegalArgumentException("No matching parse fallback for value: " + v);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.languages;
+
+import java.util.Locale;
+
+/**
+ * The parsers a {@link PipelineLanguage} can be configured to run.
+ * <br>
+ * <br>
+ * The constituency parsers ({@link #PCFG}, {@link #SHIFT_REDUCE}) produce
+ * trees, which are converted to both {@code Parse}s and {@code DependencyParse}s.
+ * {@link #NEURAL_DEPENDENCY} only produces dependency graphs, and therefore
+ * cannot feed coreference.
+ */
+public enum ParserBackend {
+  /**
+   * The lexicalized PCFG parser (CoreNLP's {@code parse} annotator default).
+   * Slowest, but what this library has always produced.
+   */
+  PCFG ("pcfg", "parse", true),
+
+  /**
+   * The shift-reduce constituency parser. Much faster than the PCFG parser.
+   * The English and Chinese models are distributed separately from the
+   * CoreNLP models jar, and must be on the classpath.
+   */
+  SHIFT_REDUCE ("shift-reduce", "parse", true),
+
+  /**
+   * The neural network dependency parser ({@code depparse}). Fastest,
+   * but produces no constituency trees.
+   */
+  NEURAL_DEPENDENCY ("depparse", "depparse", false),
+  ;
+
+  private final String v;
+  private final String annotator;
+  private final boolean constituents;
+
+  private ParserBackend(String v, String annotator, boolean constituents) {
+    this.v = v;
+    this.annotator = annotator;
+    this.constituents = constituents;
+  }
+
+  /**
+   * @return the CoreNLP annotator that runs this parser
+   */
+  public String getAnnotatorName() {
+    return this.annotator;
+  }
+
+  /**
+   * @return <code>true</code> if this parser produces constituency trees
+   */
+  public boolean producesConstituents() {
+    return this.constituents;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Enum#toString()
+   */
+  @Override
+  public String toString() {
+    return this.v;
+  }
+
+  public static final ParserBackend getEnumeration(String v) {
+    final String lower = v.toLowerCase(Locale.ENGLISH);
+    if (lower.equals("sr"))
+      return ParserBackend.SHIFT_REDUCE;
+    else if (lower.equals("nndep"))
+      return ParserBackend.NEURAL_DEPENDENCY;
+    for (ParserBackend b : ParserBackend.values())
+      if (b.toString().equals(lower))
+        return b;
+    throw new IllegalArgumentException("No matching parser for value: " + v);
+  }
+}
@@ -50,13 +50,34 @@ public enum PipelineLanguage {
     }
 
     @Override
-    String preCorefAnnotators() {
-      return this.tokenizationAnnotators() + ", pos, lemma, parse, ner";
+    String preCorefAnnotators(Optional<ParserBackend> parser) {
+      return this.tokenizationAnnotators() + ", pos, lemma"
+          + parser.map(p -> ", " + p.getAnnotatorName()).orElse("") + ", ner";
     }
 
     @Override
-    String allAvailableAnnotators() {
-      return this.preCorefAnnotators() + ", dcoref";
+    String allAvailableAnnotators(ParserBackend parser) {
+      return this.preCorefAnnotators(Optional.of(parser)) + ", dcoref";
+    }
+
+    @Override
+    public ParserBackend getFastParser() {
+      return ParserBackend.NEURAL_DEPENDENCY;
+    }
+
+    @Override
+    Optional<String> parserModel(ParserBackend parser) {
+      switch (parser) {
+      case PCFG:
+        return Optional.of("edu/stanford/nlp/models/lexparser/englishPCFG.ser.gz");
+      case SHIFT_REDUCE:
+        return Optional.of("edu/stanford/nlp/models/srparser/englishSR.ser.gz");
+      case NEURAL_DEPENDENCY:
+        // stanford dependencies, to match EnglishGrammaticalStructureFactory
+        return Optional.of("edu/stanford/nlp/models/parser/nndep/english_SD.gz");
+      default:
+        return Optional.empty();
+      }
     }
 //
 //    @Override
@@ -83,7 +104,6 @@ public enum PipelineLanguage {
       props.setProperty("ner.model", "edu/stanford/nlp/models/ner/spanish.ancora.distsim.s512.crf.ser.gz");
       props.setProperty("ner.applyNumericClassifiers", "false");
       props.setProperty("ner.useSUTime", "false");
-      props.setProperty("parse.model", "edu/stanford/nlp/models/lexparser/spanishPCFG.ser.gz");
 
       return props;
     }
@@ -104,13 +124,32 @@ public enum PipelineLanguage {
     }
 
     @Override
-    String preCorefAnnotators() {
-      return this.tokenizationAnnotators() + ", pos, ner, parse";
+    String preCorefAnnotators(Optional<ParserBackend> parser) {
+      return this.tokenizationAnnotators() + ", pos, ner"
+          + parser.map(p -> ", " + p.getAnnotatorName()).orElse("");
+    }
+
+    @Override
+    String allAvailableAnnotators(ParserBackend parser) {
+      return this.preCorefAnnotators(Optional.of(parser));
     }
 
     @Override
-    String allAvailableAnnotators() {
-      return this.preCorefAnnotators();
+    public ParserBackend getFastParser() {
+      return ParserBackend.SHIFT_REDUCE;
+    }
+
+    @Override
+    Optional<String> parserModel(ParserBackend parser) {
+      switch (parser) {
+      case PCFG:
+        return Optional.of("edu/stanford/nlp/models/lexparser/spanishPCFG.ser.gz");
+      case SHIFT_REDUCE:
+        return Optional.of("edu/stanford/nlp/models/srparser/spanishSR.ser.gz");
+      default:
+        // no neural dependency model is distributed for spanish
+        return Optional.empty();
+      }
     }
 
 //    @Override
@@ -145,7 +184,7 @@ public enum PipelineLanguage {
       props.setProperty("ner.applyNumericClassifiers", "false");
       props.setProperty("ner.useSUTime", "false");
 
-      props.setProperty("parse.model", "edu/stanford/nlp/models/lexparser/chinesePCFG.ser.gz");
+      props.setProperty("depparse.language", "chinese");
       return props;
     }
 
@@ -165,13 +204,33 @@ public enum PipelineLanguage {
     }
 
     @Override
-    String preCorefAnnotators() {
-      return this.tokenizationAnnotators() + ", pos, ner, parse";
+    String preCorefAnnotators(Optional<ParserBackend> parser) {
+      return this.tokenizationAnnotators() + ", pos, ner"
+          + parser.map(p -> ", " + p.getAnnotatorName()).orElse("");
+    }
+
+    @Override
+    String allAvailableAnnotators(ParserBackend parser) {
+      return this.preCorefAnnotators(Optional.of(parser));
+    }
+
+    @Override
+    public ParserBackend getFastParser() {
+      return ParserBackend.NEURAL_DEPENDENCY;
     }
 
     @Override
-    String allAvailableAnnotators() {
-      return this.preCorefAnnotators();
+    Optional<String> parserModel(ParserBackend parser) {
+      switch (parser) {
+      case PCFG:
+        return Optional.of("edu/stanford/nlp/models/lexparser/chinesePCFG.ser.gz");
+      case SHIFT_REDUCE:
+        return Optional.of("edu/stanford/nlp/models/srparser/chineseSR.ser.gz");
+      case NEURAL_DEPENDENCY:
+        return Optional.of("edu/stanford/nlp/models/parser/nndep/CTB_CoNLL_params.txt.gz");
+      default:
+        return Optional.empty();
+      }
     }
 
 //    @Override
@@ -200,6 +259,29 @@ public enum PipelineLanguage {
   private static final ImmutableSet<String> SENTENCE_TOKENS_ANNOTATORS =
       ImmutableSet.of("ssplit", "tokenize", "segment");
 
+  /**
+   * The parser used when none is specified.
+   */
+  public static final ParserBackend DEFAULT_PARSER = ParserBackend.PCFG;
+
+  /**
+   * The CoreNLP property that sets the maximum parse length, in tokens.
+   * Unset, or values <code>&lt;= 0</code>, parse every sentence.
+   */
+  public static final String MAX_PARSE_LENGTH_PROPERTY = "parse.maxlen";
+
+  /**
+   * Set to <code>true</code> to limit the parse length to the language's
+   * {@link #getMaxParseLength()}, unless {@link #MAX_PARSE_LENGTH_PROPERTY} is set.
+   * Off by default.
+   */
+  public static final String LANGUAGE_PARSE_LENGTH_PROPERTY = "concrete.parse.maxlen.language";
+
+  /**
+   * The maximum parse length used when a language does not override {@link #getMaxParseLength()}.
+   */
+  public static final int DEFAULT_MAX_PARSE_LENGTH = 100;
+
   private final String v;
   private PipelineLanguage(String v) {
     this.v = v;
@@ -210,7 +292,11 @@ public enum PipelineLanguage {
    * max thinks it matters.
    */
   public ImmutableList<String> getNonTokenizationAnnotators() {
-    ImmutableList<String> spl = ImmutableList.copyOf(this.allAvailableAnnotators().split(", "));
+    return getNonTokenizationAnnotators(this.allAvailableAnnotators(DEFAULT_PARSER));
+  }
+
+  private static ImmutableList<String> getNonTokenizationAnnotators(String annotators) {
+    ImmutableList<String> spl = ImmutableList.copyOf(annotators.split(", "));
     ImmutableList.Builder<String> b = ImmutableList.builder();
     for (String s : spl) {
       if (!SENTENCE_TOKENS_ANNOTATORS.contains(s))
@@ -251,27 +337,195 @@ public enum PipelineLanguage {
   abstract Properties getProperties(String annotators);
 
   abstract String tokenizationAnnotators();
-  abstract String preCorefAnnotators();
-  abstract String allAvailableAnnotators();
+  abstract String preCorefAnnotators(Optional<ParserBackend> parser);
+  abstract String allAvailableAnnotators(ParserBackend parser);
+
+  /**
+   * @param parser the parser to look up
+   * @return the model resource the parser should load for this language, or
+   * {@link Optional#empty()} if the parser is unavailable for this language
+   */
+  abstract Optional<String> parserModel(ParserBackend parser);
 
   public abstract Optional<GrammaticalStructureFactory> getGrammaticalFactory();
   public abstract HeadFinder getHeadFinder();
 
+  /**
+   * @return the fastest parser available for this language, used by
+   * {@link PipelineProfile#BALANCED}
+   */
+  public abstract ParserBackend getFastParser();
+
+  /**
+   * Constituency parse time and memory grow super-linearly with sentence length.
+   * With {@link #LANGUAGE_PARSE_LENGTH_PROPERTY} set, longer sentences are given
+   * a {@link ParseFallback} instead of a parse.
+   *
+   * @return the maximum length, in tokens, of a sentence sent to the constituency parser
+   */
+  public int getMaxParseLength() {
+    return DEFAULT_MAX_PARSE_LENGTH;
+  }
+
+  /**
+   * @param parser the parser to check
+   * @return <code>true</code> if this language has a model for the parser
+   */
+  public boolean supportsParser(ParserBackend parser) {
+    return this.parserModel(parser).isPresent();
+  }
+
+  /**
+   * @return <code>true</code> if coreference resolution is available for this language
+   */
+  public boolean supportsCoref() {
+    return this.allAvailableAnnotators(DEFAULT_PARSER).contains("dcoref");
+  }
+
+  Properties getProperties(String annotators, PipelineProfile profile, Optional<ParserBackend> parser, Properties overrides) {
+    Properties props = this.getProperties(annotators);
+    if (parser.isPresent()) {
+      final ParserBackend p = parser.get();
+      props.setProperty(p.getAnnotatorName() + ".model", this.requireParserModel(p));
+    }
+    profile.configure(props);
+    props.putAll(overrides);
+    if (parser.isPresent() && parser.get().producesConstituents()) {
+      if (!props.containsKey(MAX_PARSE_LENGTH_PROPERTY)
+          && Boolean.parseBoolean(props.getProperty(LANGUAGE_PARSE_LENGTH_PROPERTY, "false")))
+        props.setProperty(MAX_PARSE_LENGTH_PROPERTY, Integer.toString(this.getMaxParseLength()));
+      if (props.containsKey(MAX_PARSE_LENGTH_PROPERTY)
+          && ParseFallback.fromProperties(props) == ParseFallback.DEPENDENCY_ONLY)
+        props.setProperty(ParserBackend.NEURAL_DEPENDENCY.getAnnotatorName() + ".model",
+            this.requireParserModel(ParserBackend.NEURAL_DEPENDENCY));
+    }
+    ModelCache.fromProperties(props).ifPresent(c -> c.apply(props));
+    return props;
+  }
+
+  /**
+   * @param parser the parser to run
+   * @return the properties of the {@link PipelineProfile#FULL} pipeline with the parser,
+   * which reference every model the pipeline loads
+   */
+  Properties getModelProperties(ParserBackend parser) {
+    return this.getProperties(this.preCorefAnnotators(Optional.of(parser)), PipelineProfile.FULL,
+        Optional.of(parser), new Properties());
+  }
+
+  private String requireParserModel(ParserBackend p) {
+    return this.parserModel(p)
+        .orElseThrow(() -> new IllegalArgumentException("Parser " + p.toString() + " is not available for language: " + this.toString()));
+  }
+
   public ConcreteStanfordTokensSentenceAnalytic getSentenceTokenizationAnalytic() {
-    return new ConcreteStanfordTokensSentenceAnalytic(this.getProperties(this.tokenizationAnnotators()));
+    return this.getSentenceTokenizationAnalytic(new Properties());
+  }
+
+  /**
+   * @param overrides properties that override those set by this language,
+   * e.g. {@link ModelCache#PROPERTY}
+   * @return an analytic that tokenizes and sentence splits (or segments)
+   */
+  public ConcreteStanfordTokensSentenceAnalytic getSentenceTokenizationAnalytic(Properties overrides) {
+    Properties props = this.getProperties(this.tokenizationAnnotators());
+    props.putAll(overrides);
+    ModelCache.fromProperties(props).ifPresent(c -> c.apply(props));
+    return new ConcreteStanfordTokensSentenceAnalytic(props);
   }
 
   public ConcreteStanfordPreCorefAnalytic getPreCorefAnalytic() {
-    Properties props = this.getProperties(this.preCorefAnnotators());
+    return this.getPreCorefAnalytic(PipelineProfile.FULL, Optional.empty());
+  }
+
+  /**
+   * @param parser the parser to run
+   * @return an analytic that runs the {@link PipelineProfile#FULL} annotators up to,
+   * but not including, coreference
+   * @throws IllegalArgumentException if the parser is not available for this language
+   */
+  public ConcreteStanfordPreCorefAnalytic getPreCorefAnalytic(ParserBackend parser) {
+    return this.getPreCorefAnalytic(PipelineProfile.FULL, Optional.of(parser));
+  }
+
+  /**
+   * @param profile the profile to run
+   * @param parser the parser to run, overriding the profile's default; ignored if the
+   * profile does not parse
+   * @return an analytic that runs the profile's annotators up to, but not including, coreference
+   * @throws IllegalArgumentException if the parser is not available for this language
+   */
+  public ConcreteStanfordPreCorefAnalytic getPreCorefAnalytic(PipelineProfile profile, Optional<ParserBackend> parser) {
+    return this.getPreCorefAnalytic(profile, parser, new Properties());
+  }
+
+  /**
+   * @param profile the profile to run
+   * @param parser the parser to run, overriding the profile's default; ignored if the
+   * profile does not parse
+   * @param overrides properties that override those set by this language and the profile,
+   * e.g. {@link #MAX_PARSE_LENGTH_PROPERTY}, {@link #LANGUAGE_PARSE_LENGTH_PROPERTY} or {@link ParseFallback#PROPERTY}
+   * @return an analytic that runs the profile's annotators up to, but not including, coreference
+   * @throws IllegalArgumentException if the parser, or the neural network dependency parser
+   * required by {@link ParseFallback#DEPENDENCY_ONLY}, is not available for this language
+   */
+  public ConcreteStanfordPreCorefAnalytic getPreCorefAnalytic(PipelineProfile profile, Optional<ParserBackend> parser, Properties overrides) {
+    final Optional<ParserBackend> resolved = profile.getParser(this, parser);
+    final String annotators = profile.annotators(this.preCorefAnnotators(resolved), overrides);
+    Properties props = this.getProperties(annotators, profile, resolved, overrides);
     return new ConcreteStanfordPreCorefAnalytic(props,
         this.getHeadFinder(), this.getGrammaticalFactory(),
-        this.getNonTokenizationAnnotators(), false);
+        getNonTokenizationAnnotators(annotators), false);
   }
 
   public ConcreteStanfordPreCorefAnalytic getAllAnalytic() {
-    Properties props = this.getProperties(this.preCorefAnnotators());
+    return this.getAllAnalytic(PipelineProfile.FULL, Optional.empty());
+  }
+
+  /**
+   * @param parser the parser to run
+   * @return an analytic that runs all available annotators, including coreference
+   * if available
+   * @throws IllegalArgumentException if the parser is not available for this language,
+   * or if coreference is requested with a parser that does not produce constituency trees
+   */
+  public ConcreteStanfordPreCorefAnalytic getAllAnalytic(ParserBackend parser) {
+    return this.getAllAnalytic(PipelineProfile.FULL, Optional.of(parser));
+  }
+
+  /**
+   * @param profile the profile to run
+   * @param parser the parser to run, overriding the profile's default
+   * @return an analytic that runs the profile's annotators, including coreference
+   * if available
+   * @throws IllegalArgumentException if the parser is not available for this language,
+   * or if coreference is requested with a profile or parser that does not produce constituency trees
+   */
+  public ConcreteStanfordPreCorefAnalytic getAllAnalytic(PipelineProfile profile, Optional<ParserBackend> parser) {
+    return this.getAllAnalytic(profile, parser, new Properties());
+  }
+
+  /**
+   * @param profile the profile to run
+   * @param parser the parser to run, overriding the profile's default
+   * @param overrides properties that override those set by this language and the profile
+   * @return an analytic that runs the profile's annotators, including coreference
+   * if available
+   * @throws IllegalArgumentException if a required parser is not available for this language,
+   * or if coreference is requested with a profile or parser that does not produce constituency trees
+   * @see #getPreCorefAnalytic(PipelineProfile, Optional, Properties)
+   */
+  public ConcreteStanfordPreCorefAnalytic getAllAnalytic(PipelineProfile profile, Optional<ParserBackend> parser, Properties overrides) {
+    if (!this.supportsCoref())
+      return this.getPreCorefAnalytic(profile, parser, overrides);
+    final ParserBackend resolved = profile.getParser(this, parser)
+        .filter(p -> p.producesConstituents())
+        .orElseThrow(() -> new IllegalArgumentException("Coreference requires a constituency parser, which profile "
+            + profile.toString() + " with parser " + parser.map(p -> p.toString()).orElse("(default)") + " does not run."));
+    final String annotators = this.allAvailableAnnotators(resolved);
+    Properties props = this.getProperties(this.preCorefAnnotators(Optional.of(resolved)), profile, Optional.of(resolved), overrides);
     return new ConcreteStanfordPreCorefAnalytic(props,
         this.getHeadFinder(), this.getGrammaticalFactory(),
-        this.getNonTokenizationAnnotators(), true);
+        getNonTokenizationAnnotators(annotators), true);
   }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.languages;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import edu.stanford.nlp.util.PropertiesUtils;
+
+/**
+ * Curated trade-offs between annotation depth and throughput.
+ * <br>
+ * <br>
+ * See <code>docs/performance.md</code> for the annotators each profile runs,
+ * and how to measure their throughput.
+ */
+public enum PipelineProfile {
+  /**
+   * Tokenization, sentence splitting, part of speech tags, and NER,
+   * without SUTime or the numeric classifiers. No lemmas, no parsing, no coreference.
+   */
+  FAST ("fast", false, true),
+
+  /**
+   * {@link #FAST}, plus the fastest parser available for the language
+   * ({@link PipelineLanguage#getFastParser()}).
+   */
+  BALANCED ("balanced", true, true),
+
+  /**
+   * All annotators, with their default options and the
+   * {@link PipelineLanguage#DEFAULT_PARSER}.
+   */
+  FULL ("full", true, false),
+  ;
+
+  private final String v;
+  private final boolean parses;
+  private final boolean leanNer;
+
+  private PipelineProfile(String v, boolean parses, boolean leanNer) {
+    this.v = v;
+    this.parses = parses;
+    this.leanNer = leanNer;
+  }
+
+  /**
+   * @return <code>true</code> if this profile runs a parser
+   */
+  public boolean parses() {
+    return this.parses;
+  }
+
+  /**
+   * @param lang the language to be run
+   * @param requested the parser requested by the caller, if any
+   * @return the parser this profile runs for the language, or {@link Optional#empty()}
+   * if this profile does not parse
+   */
+  public Optional<ParserBackend> getParser(PipelineLanguage lang, Optional<ParserBackend> requested) {
+    if (!this.parses)
+      return Optional.empty();
+    if (requested.isPresent())
+      return requested;
+    return Optional.of(this == BALANCED ? lang.getFastParser() : PipelineLanguage.DEFAULT_PARSER);
+  }
+
+  /**
+   * NER needs lemmas only for SUTime and the numeric classifiers, so {@link #FAST}
+   * drops <code>lemma</code> unless the overrides turn either back on.
+   *
+   * @param annotators the annotators the language runs with this profile's parser
+   * @param overrides properties that override those set by the language and this profile
+   * @return the annotators this profile runs
+   */
+  String annotators(String annotators, Properties overrides) {
+    if (this != FAST
+        || PropertiesUtils.getBool(overrides, "ner.useSUTime", false)
+        || PropertiesUtils.getBool(overrides, "ner.applyNumericClassifiers", false))
+      return annotators;
+    return Arrays.stream(annotators.split(", "))
+        .filter(a -> !a.equals("lemma"))
+        .collect(Collectors.joining(", "));
+  }
+
+  /**
+   * Apply this profile's annotator options.
+   *
+   * @param props the pipeline {@link Properties} to modify
+   */
+  void configure(Properties props) {
+    if (this.leanNer) {
+      props.setProperty("ner.useSUTime", "false");
+      props.setProperty("ner.applyNumericClassifiers", "false");
+    }
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Enum#toString()
+   */
+  @Override
+  public String toString() {
+    return this.v;
+  }
+
+  public static final PipelineProfile getEnumeration(String v) {
+    final String lower = v.toLowerCase(Locale.ENGLISH);
+    for (PipelineProfile p : PipelineProfile.values())
+      if (p.toString().equals(lower))
+        return p;
+    throw new IllegalArgumentException("No matching profile for value: " + v);
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.languages;
+
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * How the tokens of input that is already tokenized are checked against
+ * those CoreNLP annotated.
+ */
+public enum TokenVerification {
+  /**
+   * Rebuild each {@code Token} from CoreNLP's output, and compare it, text
+   * and all, to the input's. Slow; for debugging.
+   */
+  FULL ("full"),
+
+  /**
+   * Compare the number of tokens, and each token's index and character offsets.
+   */
+  FINGERPRINT ("fingerprint"),
+
+  /**
+   * Compare only the number of tokens, and keep the input's tokens as they are.
+   */
+  TRUST ("trust"),
+  ;
+
+  /**
+   * The property that selects the verification.
+   */
+  public static final String PROPERTY = "concrete.tokens.verify";
+
+  private final String v;
+
+  private TokenVerification(String v) {
+    this.v = v;
+  }
+
+  /*
+   * (non-Javadoc)
+   * @see java.lang.Enum#toString()
+   */
+  @Override
+  public String toString() {
+    return this.v;
+  }
+
+  /**
+   * @param props the pipeline {@link Properties}
+   * @return the verification set by {@link #PROPERTY}, or {@link #FINGERPRINT} if it is not set
+   */
+  public static TokenVerification fromProperties(Properties props) {
+    return getEnumeration(props.getProperty(PROPERTY, FINGERPRINT.toString()));
+  }
+
+  public static final TokenVerification getEnumeration(String v) {
+    final String lower = v.toLowerCase(Locale.ENGLISH);
+    for (TokenVerification t : TokenVerification.values())
+      if (t.toString().equals(lower))
+        return t;
+    throw new IllegalArgumentException("No matching token verification for value: " + v);
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.runners;
+
+import edu.jhu.hlt.acute.archivers.Archivable;
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.serialization.archiver.ArchivableCommunication;
+
+/**
+ * A communication with deferred coreference added, archived under its UUID,
+ * as <code>&lt;uuid&gt;.coref.comm</code>, so that it does not replace the
+ * entry written before coreference ran.
+ */
+public class CorefArchivable implements Archivable {
+
+  /**
+   * The suffix of the names of the entries.
+   */
+  public static final String SUFFIX = ".coref.comm";
+
+  private final Communication comm;
+
+  public CorefArchivable(Communication comm) {
+    this.comm = comm;
+  }
+
+  /* (non-Javadoc)
+   * @see edu.jhu.hlt.acute.archivers.Archivable#getFileName()
+   */
+  @Override
+  public String getFileName() {
+    return this.comm.getUuid().getUuidString() + SUFFIX;
+  }
+
+  /* (non-Javadoc)
+   * @see edu.jhu.hlt.acute.archivers.Archivable#getBytes()
+   */
+  @Override
+  public byte[] getBytes() {
+    return new ArchivableCommunication(this.comm).getBytes();
+  }
+}
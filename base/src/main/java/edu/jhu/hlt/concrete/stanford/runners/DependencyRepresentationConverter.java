@@ -0,0 +1,18 @@
+package edu.jhu.hlt.concrete.stanford.runners;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+
+import edu.jhu.hlt.concrete.stanford.languages.DependencyRepresentation;
+
+public class DependencyRepresentationConverter implements IStringConverter<DependencyRepresentation> {
+
+  @Override
+  public DependencyRepresentation convert(String value) {
+    try {
+      return DependencyRepresentation.getEnumeration(value);
+    } catch (Exception e) {
+      throw new ParameterException("Invalid dependency representation: " + value);
+    }
+  }
+}
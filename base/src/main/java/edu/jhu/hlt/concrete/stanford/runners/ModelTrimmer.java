@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford.runners;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.google.common.io.ByteStreams;
+
+import edu.jhu.hlt.concrete.stanford.languages.ModelManifest;
+import edu.jhu.hlt.concrete.stanford.languages.ParseFallback;
+import edu.jhu.hlt.concrete.stanford.languages.ParserBackend;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineProfile;
+
+/**
+ * Copies a jar, dropping the CoreNLP models that a configured pipeline does not load.
+ * <br>
+ * <br>
+ * The CoreNLP models jars hold the models of every annotator and language;
+ * a single language and profile needs a fraction of them. Entries outside
+ * {@link ModelManifest#MODELS_PREFIX} are copied unchanged.
+ */
+public class ModelTrimmer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ModelTrimmer.class);
+
+  @Parameter(names = "--help", help = true,
+      description = "Print the usage information and exit.")
+  private boolean help;
+
+  @Parameter(names = "--language", required = true, converter = LanguageConverter.class,
+      description = "The language that will be run.")
+  private PipelineLanguage language;
+
+  @Parameter(names = "--profile", converter = PipelineProfileConverter.class,
+      description = "The profile that will be run.")
+  private PipelineProfile profile = PipelineProfile.FULL;
+
+  @Parameter(names = "--parser", converter = ParserBackendConverter.class,
+      description = "The parser that will be run, if not the profile's.")
+  private ParserBackend parser = null;
+
+  @Parameter(names = "--parse-fallback", converter = ParseFallbackConverter.class,
+      description = "The parse fallback that will be run.")
+  private ParseFallback parseFallback = ParseFallback.FLAT;
+
+  @Parameter(names = "--run-coref",
+      description = "Keep the coreference models, if the language has them.")
+  private boolean coref = false;
+
+  @Parameter(names = "--list",
+      description = "Print the models the pipeline loads, and exit.")
+  private boolean list = false;
+
+  @Parameter(names = "--input",
+      description = "The jar to trim.")
+  private String input;
+
+  @Parameter(names = "--output",
+      description = "The path at which to write the trimmed jar.")
+  private String output;
+
+  ModelManifest getManifest() {
+    Properties overrides = new Properties();
+    overrides.setProperty(ParseFallback.PROPERTY, this.parseFallback.toString());
+    return ModelManifest.of(this.language, this.profile, Optional.ofNullable(this.parser), this.coref, overrides);
+  }
+
+  /**
+   * @param in the jar to read
+   * @param out the path of the trimmed jar
+   * @param manifest the models to keep
+   * @throws IOException on failure to read or write either jar
+   */
+  static void trim(Path in, Path out, ModelManifest manifest) throws IOException {
+    long kept = 0L;
+    long dropped = 0L;
+    try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(Files.newInputStream(in)));
+        OutputStream os = new BufferedOutputStream(Files.newOutputStream(out));
+        ZipOutputStream zos = new ZipOutputStream(os)) {
+      ZipEntry e;
+      while ((e = zis.getNextEntry()) != null) {
+        final String name = e.getName();
+        if (!e.isDirectory() && name.startsWith(ModelManifest.MODELS_PREFIX) && !manifest.matches(name)) {
+          dropped++;
+          continue;
+        }
+        ZipEntry copy = new ZipEntry(name);
+        copy.setTime(e.getTime());
+        zos.putNextEntry(copy);
+        ByteStreams.copy(zis, zos);
+        zos.closeEntry();
+        kept++;
+      }
+    }
+    LOGGER.info("Kept {} entries and dropped {} model entries; {} bytes -> {} bytes",
+        kept, dropped, Files.size(in), Files.size(out));
+  }
+
+  public static void main(String[] args) {
+    ModelTrimmer mt = new ModelTrimmer();
+    JCommander jc = JCommander.newBuilder().addObject(mt).build();
+    jc.parse(args);
+    jc.setProgramName(ModelTrimmer.class.getName());
+    if (mt.help) {
+      jc.usage();
+      return;
+    }
+
+    ModelManifest manifest = mt.getManifest();
+    if (mt.list) {
+      manifest.getEntries().forEach(System.out::println);
+      return;
+    }
+    if (mt.input == null || mt.output == null) {
+      LOGGER.error("--input and --output are required unless --list is set");
+      System.exit(1);
+    }
+
+    try {
+      LOGGER.info("Keeping models: {}", manifest.getEntries());
+      trim(Paths.get(mt.input), Paths.get(mt.output), manifest);
+    } catch (IOException e) {
+      LOGGER.error("Failed to trim jar: " + mt.input, e);
+      System.exit(128);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package edu.jhu.hlt.concrete.stanford.runners;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+
+import edu.jhu.hlt.concrete.stanford.languages.ParseFallback;
+
+public class ParseFallbackConverter implements IStringConverter<ParseFallback> {
+
+  @Override
+  public ParseFallback convert(String value) {
+    try {
+      return ParseFallback.getEnumeration(value);
+    } catch (Exception e) {
+      throw new ParameterException("Invalid parse fallback: " + value);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package edu.jhu.hlt.concrete.stanford.runners;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+
+import edu.jhu.hlt.concrete.stanford.languages.ParserBackend;
+
+public class ParserBackendConverter implements IStringConverter<ParserBackend> {
+
+  @Override
+  public ParserBackend convert(String value) {
+    try {
+      return ParserBackend.getEnumeration(value);
+    } catch (Exception e) {
+      throw new ParameterException("Invalid parser: " + value);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package edu.jhu.hlt.concrete.stanford.runners;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+
+import edu.jhu.hlt.concrete.stanford.languages.PipelineProfile;
+
+public class PipelineProfileConverter implements IStringConverter<PipelineProfile> {
+
+  @Override
+  public PipelineProfile convert(String value) {
+    try {
+      return PipelineProfile.getEnumeration(value);
+    } catch (Exception e) {
+      throw new ParameterException("Invalid profile: " + value);
+    }
+  }
+}
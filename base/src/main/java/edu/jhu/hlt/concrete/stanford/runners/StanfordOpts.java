@@ -7,7 +7,13 @@ import java.io.UnsupportedEncodingException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.lang3.time.StopWatch;
 import org.joda.time.Duration;
@@ -26,6 +32,9 @@ import edu.jhu.hlt.concrete.ingesters.base.IngesterParameterDelegate;
 import edu.jhu.hlt.concrete.miscommunication.WrappedCommunication;
 import edu.jhu.hlt.concrete.serialization.archiver.ArchivableCommunication;
 import edu.jhu.hlt.concrete.serialization.iterators.TarGzArchiveEntryCommunicationIterator;
+import edu.jhu.hlt.concrete.stanford.ConcreteStanfordPreCorefAnalytic;
+import edu.jhu.hlt.concrete.stanford.DeferredCoreference;
+import edu.jhu.hlt.concrete.stanford.PooledAnalytic;
 import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
 
 public class StanfordOpts {
@@ -65,6 +74,35 @@ public class StanfordOpts {
     return pb.build();
   }
 
+  /**
+   * Run the analytic; if it is the coreference analytic and coreference is deferred,
+   * schedule the communication with coreference to be archived once it is ready.
+   */
+  private static WrappedCommunication annotate(Analytic<? extends WrappedCommunication> a, Communication c,
+      Optional<ExecutorService> corefExecutor, TarArchiver arch, List<CompletableFuture<Void>> pending,
+      AtomicBoolean corefFailed) throws AnalyticException {
+    if (corefExecutor.isPresent() && a instanceof PooledAnalytic)
+      return ((PooledAnalytic<?>) a).withAnalytic(m -> annotate(m, c, corefExecutor, arch, pending, corefFailed));
+    if (!corefExecutor.isPresent() || !(a instanceof ConcreteStanfordPreCorefAnalytic))
+      return a.annotate(c);
+    DeferredCoreference dc = ((ConcreteStanfordPreCorefAnalytic) a).annotateDeferringCoref(c, corefExecutor.get());
+    dc.getCoref().ifPresent(f -> pending.add(f.thenAccept(tc -> {
+      try {
+        synchronized (arch) {
+          arch.addEntry(new CorefArchivable(tc.getRoot()));
+        }
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    }).whenComplete((v, t) -> {
+      if (t != null) {
+        LOGGER.warn("Caught exception adding deferred coreference to document: " + c.getId(), t);
+        corefFailed.set(true);
+      }
+    })));
+    return dc.getPreCoref();
+  }
+
   /**
    *
    * @param lang
@@ -88,28 +126,50 @@ public class StanfordOpts {
     LOGGER.info("Ingest beginning");
     StopWatch sw = new StopWatch();
     sw.start();
+    // with deferred coreference, each communication is written as soon as it
+    // is annotated, and again, with coreference, as a second entry once that runs.
+    final Optional<ExecutorService> corefExecutor = this.stanfordParams.getDeferredCorefExecutor();
+    final List<CompletableFuture<Void>> pending = new ArrayList<>();
+    final AtomicBoolean corefFailed = new AtomicBoolean(false);
     try (TarArchiver arch = this.ingesterParams.getArchiver();) {
-      for (Path p : this.validatePaths()) {
-        try (InputStream in = Files.newInputStream(p);
-            BufferedInputStream bin = new BufferedInputStream(in);
-            TarGzArchiveEntryCommunicationIterator iter = new TarGzArchiveEntryCommunicationIterator(bin);) {
-          while (iter.hasNext()) {
-            Communication c = iter.next();
-            try {
-              WrappedCommunication wc = first.annotate(c);
-              // chain add'l analytics
-              for (Analytic<? extends WrappedCommunication> a : rest) {
-                wc = a.annotate(wc.getRoot());
+      try {
+        for (Path p : this.validatePaths()) {
+          try (InputStream in = Files.newInputStream(p);
+              BufferedInputStream bin = new BufferedInputStream(in);
+              TarGzArchiveEntryCommunicationIterator iter = new TarGzArchiveEntryCommunicationIterator(bin);) {
+            while (iter.hasNext()) {
+              Communication c = iter.next();
+              try {
+                WrappedCommunication wc = annotate(first, c, corefExecutor, arch, pending, corefFailed);
+                // chain add'l analytics
+                for (Analytic<? extends WrappedCommunication> a : rest) {
+                  wc = annotate(a, wc.getRoot(), corefExecutor, arch, pending, corefFailed);
+                }
+                // write output
+                synchronized (arch) {
+                  arch.addEntry(new ArchivableCommunication(wc.getRoot()));
+                }
+              } catch (AnalyticException ae) {
+                LOGGER.warn("Caught exception on document", ae);
+                if (this.stanfordParams.exitOnException)
+                  throw new IOException("Processing failure and fail-fast enabled");
               }
-              // write output
-              arch.addEntry(new ArchivableCommunication(wc.getRoot()));
-            } catch (AnalyticException ae) {
-              LOGGER.warn("Caught exception on document", ae);
-              if (this.stanfordParams.exitOnException)
+              if (corefFailed.get() && this.stanfordParams.exitOnException)
                 throw new IOException("Processing failure and fail-fast enabled");
+              pending.removeIf(CompletableFuture::isDone);
             }
           }
         }
+
+        // the archive must stay open until deferred coreference is written
+        if (!pending.isEmpty())
+          LOGGER.info("Waiting for deferred coreference on {} documents", pending.size());
+        for (CompletableFuture<Void> f : pending)
+          f.handle((v, t) -> null).join();
+        if (corefFailed.get() && this.stanfordParams.exitOnException)
+          throw new IOException("Processing failure and fail-fast enabled");
+      } finally {
+        corefExecutor.ifPresent(ExecutorService::shutdownNow);
       }
     }
 
@@ -117,5 +177,6 @@ public class StanfordOpts {
     LOGGER.info("Ingest completed");
     Duration d = new Duration(sw.getTime());
     LOGGER.info("Ingest duration: {}", d.toString());
+    StanfordParameterDelegate.logStatistics(analytics);
   }
 }
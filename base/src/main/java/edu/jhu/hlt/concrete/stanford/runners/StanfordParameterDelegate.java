@@ -4,6 +4,9 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,7 +16,19 @@ import com.google.common.collect.ImmutableList;
 
 import edu.jhu.hlt.concrete.analytics.base.Analytic;
 import edu.jhu.hlt.concrete.miscommunication.WrappedCommunication;
+import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
+import edu.jhu.hlt.concrete.stanford.ConcreteStanfordPreCorefAnalytic;
+import edu.jhu.hlt.concrete.stanford.ConcreteStanfordTokensSentenceAnalytic;
+import edu.jhu.hlt.concrete.stanford.DeferredCoreference;
+import edu.jhu.hlt.concrete.stanford.PooledAnalytic;
+import edu.jhu.hlt.concrete.stanford.StatisticsReporting;
+import edu.jhu.hlt.concrete.stanford.languages.DependencyRepresentation;
+import edu.jhu.hlt.concrete.stanford.languages.ModelCache;
+import edu.jhu.hlt.concrete.stanford.languages.ParseFallback;
+import edu.jhu.hlt.concrete.stanford.languages.ParserBackend;
 import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineProfile;
+import edu.jhu.hlt.concrete.stanford.languages.TokenVerification;
 import edu.jhu.hlt.utilt.sys.SystemErrDisabler;
 
 /**
@@ -38,6 +53,99 @@ public class StanfordParameterDelegate {
       description = "Run coreference resolution on the communications. Currently only enabled for English.")
   boolean isCoreferenceEnabled = false;
 
+  @Parameter(names = "--skip-section-kinds",
+      description = "Section kinds (e.g. metadata) that are not tokenized, comma-separated. Sections of these kinds "
+          + "are dropped from the output, as blank sections are. Has no effect with --tokenized-input.")
+  List<String> skippedSectionKinds = null;
+
+  @Parameter(names = "--tokenization-chunk-size",
+      description = "Tokenize and sentence split sections longer than this many characters in chunks, split at "
+          + "blank lines where possible, so that memory is bounded by the chunk rather than the section. "
+          + "By default, each section is annotated whole.")
+  Integer tokenizationChunkSize = null;
+
+  @Parameter(names = "--profile", converter = PipelineProfileConverter.class,
+      description = "The annotators to run: fast (tokens, POS, NER), balanced (fast, plus the language's fastest parser), "
+          + "or full (all annotators). See docs/performance.md.")
+  PipelineProfile profile = PipelineProfile.FULL;
+
+  @Parameter(names = "--parser", converter = ParserBackendConverter.class,
+      description = "The parser to run, overriding the profile's parser: pcfg, shift-reduce (sr), or depparse (nndep). "
+          + "depparse produces dependency parses only, and cannot be used with coreference. Ignored by the fast profile.")
+  ParserBackend parser = null;
+
+  @Parameter(names = "--max-parse-length",
+      description = "Sentences with more tokens than this are not sent to the constituency parser; see --parse-fallback. "
+          + "By default, every sentence is parsed. Values <= 0 turn the limit off.")
+  Integer maxParseLength = null;
+
+  @Parameter(names = "--language-parse-length",
+      description = "Limit the parse length to the language's maximum (see docs/performance.md), "
+          + "unless --max-parse-length is given.")
+  boolean isLanguageParseLength = false;
+
+  @Parameter(names = "--parse-fallback", converter = ParseFallbackConverter.class,
+      description = "What to produce for sentences longer than --max-parse-length: flat, right-branching, or dependency-only.")
+  ParseFallback parseFallback = ParseFallback.FLAT;
+
+  @Parameter(names = "--dependencies", converter = DependencyRepresentationConverter.class,
+      description = "The dependency representations to build and write for parsed sentences, comma-separated: "
+          + "basic, collapsed, collapsed-cc. Defaults to all three.")
+  List<DependencyRepresentation> dependencies = null;
+
+  @Parameter(names = "--model-loading-threads",
+      description = "The number of threads used to load models at startup. 1 loads them one after another. "
+          + "Defaults to the number of processors.")
+  Integer modelLoadingThreads = null;
+
+  @Parameter(names = "--model-cache",
+      description = "A directory in which to keep decompressed copies of the models, which load faster than those "
+          + "in the models jar. Models missing from it are extracted on first use.")
+  String modelCache = null;
+
+  @Parameter(names = "--coref-window",
+      description = "Run coreference on overlapping windows of this many sentences, and merge chains that share "
+          + "a mention, to bound its time and memory on long documents. By default, it runs on whole documents.")
+  Integer corefWindow = null;
+
+  @Parameter(names = "--coref-window-overlap",
+      description = "The number of sentences consecutive coreference windows share. Defaults to 5, or half the window.")
+  Integer corefWindowOverlap = null;
+
+  @Parameter(names = "--trust-coref-mentions",
+      description = "Do not check that each coreference mention's tokens are in its tokenization. "
+          + "Saves time on long documents; CoreNLP's mention offsets are trusted.")
+  boolean isCorefTrusted = false;
+
+  @Parameter(names = "--defer-coref",
+      description = "Write or return each communication as soon as the annotators before coreference have run, "
+          + "and add coreference afterwards, on a low-priority thread. Has no effect without --run-coref.")
+  boolean isCorefDeferred = false;
+
+  @Parameter(names = "--deferred-coref-backlog",
+      description = "The number of documents that may wait for deferred coreference. Each holds its CoreNLP "
+          + "annotation in memory; when the backlog is full, annotation waits for coreference to catch up.")
+  int deferredCorefBacklog = 16;
+
+  @Parameter(names = "--token-verification", converter = TokenVerificationConverter.class,
+      description = "How the tokens of tokenized input are checked against CoreNLP's: fingerprint (count and "
+          + "offsets), trust (count only; the input's tokens are kept as they are), or full (every field; slow, for debugging).")
+  TokenVerification tokenVerification = TokenVerification.FINGERPRINT;
+
+  @Parameter(names = "--trust-sentence-spans",
+      description = "Do not check that each annotated sentence covers the span of the sentence it is merged back into.")
+  boolean isSentenceAlignmentTrusted = false;
+
+  @Parameter(names = "--pool-size",
+      description = "The number of copies of the annotation analytic, so that this many documents can be annotated at "
+          + "once, e.g. by the server. Copies share the models that CoreNLP allows to be shared; coreference is loaded per copy.")
+  int poolSize = 1;
+
+  @Parameter(names = "--pool-timeout",
+      description = "With --pool-size, the milliseconds a request waits for an idle copy before failing. "
+          + "By default, requests wait indefinitely.")
+  long poolTimeoutMillis = 0L;
+
   @Parameter(names = "--enable-std-err",
       description = "Enable standard error. By default, Stanford prints a lot of output to std err.")
   boolean isStdErrEnabled = false;
@@ -45,25 +153,38 @@ public class StanfordParameterDelegate {
   public ImmutableList<Analytic<? extends WrappedCommunication>> getAnalytics(PipelineLanguage lang) throws IOException {
     List<Analytic<? extends WrappedCommunication>> al = new ArrayList<>();
     // if the input is not tokenized, the segment/tokenization
-    // analytics have to be run first.
+    // analytics have to be run first. they are built before the
+    // others: see ConcreteStanfordPreCorefAnalytic.
     if (!this.isInputTokenized)
-      al.add(lang.getSentenceTokenizationAnalytic());
+      al.add(lang.getSentenceTokenizationAnalytic(this.getOverrides()));
     else
       LOGGER.info("Omiting tokenization step");
     // if NOT stopping at tokenization, add other analytics
     if (!this.isOnlyUpToTokenization) {
+      final Optional<ParserBackend> requested = Optional.ofNullable(this.parser);
+      final Optional<ParserBackend> resolved = this.profile.getParser(lang, requested);
+      final Properties overrides = this.getOverrides();
+      if (resolved.isPresent() && !lang.supportsParser(resolved.get()))
+        throw new IOException("Parser " + resolved.get().toString() + " is not available for language: " + lang.toString());
+      if (this.parseFallback == ParseFallback.DEPENDENCY_ONLY && resolved.map(p -> p.producesConstituents()).orElse(false)
+          && !lang.supportsParser(ParserBackend.NEURAL_DEPENDENCY))
+        throw new IOException("Parse fallback " + this.parseFallback.toString() + " is not available for language: " + lang.toString());
       // if coref is enabled, only add it for english -
       // the others don't have it implemented.
       if (this.isCoreferenceEnabled) {
-        if (lang == PipelineLanguage.ENGLISH) {
-          al.add(lang.getAllAnalytic());
+        if (lang.supportsCoref() && resolved.map(p -> p.producesConstituents()).orElse(false)) {
+          al.add(this.pooled(lang.getAllAnalytic(this.profile, requested, overrides)));
+        } else if (lang.supportsCoref()) {
+          LOGGER.warn("Coreference requires constituency trees; not running it with profile {} and parser: {}",
+              this.profile.toString(), resolved.map(p -> p.toString()).orElse("(none)"));
+          al.add(this.pooled(lang.getPreCorefAnalytic(this.profile, requested, overrides)));
         } else {
           LOGGER.warn("Coreference not enabled for language: {}", lang.toString());
-          al.add(lang.getPreCorefAnalytic());
+          al.add(this.pooled(lang.getPreCorefAnalytic(this.profile, requested, overrides)));
         }
         // otherwise, just add the non-coref version
       } else {
-        al.add(lang.getPreCorefAnalytic());
+        al.add(this.pooled(lang.getPreCorefAnalytic(this.profile, requested, overrides)));
       }
     }
 
@@ -75,6 +196,100 @@ public class StanfordParameterDelegate {
     return analytics;
   }
 
+  /**
+   * The tokenization analytic is not pooled: its annotators come from CoreNLP's
+   * shared pool, and keep no state between documents.
+   *
+   * @return the analytic, or a {@link PooledAnalytic} of it and its replicas if <code>--pool-size</code> is more than 1
+   */
+  private Analytic<TokenizedCommunication> pooled(ConcreteStanfordPreCorefAnalytic a) {
+    if (this.poolSize <= 1)
+      return a;
+    List<ConcreteStanfordPreCorefAnalytic> members = new ArrayList<>(this.poolSize);
+    members.add(a);
+    for (int i = 1; i < this.poolSize; i++)
+      members.add(a.replicate());
+    return new PooledAnalytic<>(members, this.poolTimeoutMillis);
+  }
+
+  /**
+   * @return an executor to run deferred coreference on, if both <code>--run-coref</code>
+   * and <code>--defer-coref</code> are set
+   * @see ConcreteStanfordPreCorefAnalytic#annotateDeferringCoref(edu.jhu.hlt.concrete.Communication, java.util.concurrent.Executor)
+   */
+  public Optional<ExecutorService> getDeferredCorefExecutor() {
+    if (!this.isCoreferenceEnabled || !this.isCorefDeferred)
+      return Optional.empty();
+    return Optional.of(DeferredCoreference.newExecutor(this.deferredCorefBacklog));
+  }
+
+  /**
+   * Like every tokenization analytic, this must be built before the analytics
+   * of {@link #getAnalytics(PipelineLanguage)}: see {@link ConcreteStanfordPreCorefAnalytic}.
+   *
+   * @return with <code>--tokenized-input</code>, an analytic that tokenizes text
+   * for the analytics of {@link #getAnalytics(PipelineLanguage)}, which do not
+   * include one; e.g. to prepare a warm-up corpus
+   */
+  public Optional<ConcreteStanfordTokensSentenceAnalytic> getInputTokenizer(PipelineLanguage lang) {
+    if (!this.isInputTokenized)
+      return Optional.empty();
+    return Optional.of(lang.getSentenceTokenizationAnalytic(this.getOverrides()));
+  }
+
+  /**
+   * @return the number of documents that can be annotated at once
+   */
+  public int getPoolSize() {
+    return Math.max(1, this.poolSize);
+  }
+
+  /**
+   * @return the pipeline properties set by these parameters, which override
+   * the defaults of the language and profile
+   */
+  Properties getOverrides() {
+    Properties props = new Properties();
+    if (this.tokenizationChunkSize != null)
+      props.setProperty(ConcreteStanfordTokensSentenceAnalytic.CHUNK_SIZE_PROPERTY, this.tokenizationChunkSize.toString());
+    if (this.skippedSectionKinds != null)
+      props.setProperty(ConcreteStanfordTokensSentenceAnalytic.SKIP_SECTION_KINDS_PROPERTY, String.join(",", this.skippedSectionKinds));
+    if (this.maxParseLength != null)
+      props.setProperty(PipelineLanguage.MAX_PARSE_LENGTH_PROPERTY, this.maxParseLength.toString());
+    if (this.isLanguageParseLength)
+      props.setProperty(PipelineLanguage.LANGUAGE_PARSE_LENGTH_PROPERTY, Boolean.TRUE.toString());
+    props.setProperty(ParseFallback.PROPERTY, this.parseFallback.toString());
+    if (this.dependencies != null)
+      props.setProperty(DependencyRepresentation.PROPERTY, DependencyRepresentation.toProperty(this.dependencies));
+    if (this.modelCache != null)
+      props.setProperty(ModelCache.PROPERTY, this.modelCache);
+    if (this.corefWindow != null)
+      props.setProperty(ConcreteStanfordPreCorefAnalytic.COREF_WINDOW_PROPERTY, this.corefWindow.toString());
+    if (this.corefWindowOverlap != null)
+      props.setProperty(ConcreteStanfordPreCorefAnalytic.COREF_OVERLAP_PROPERTY, this.corefWindowOverlap.toString());
+    if (this.isCorefTrusted)
+      props.setProperty(ConcreteStanfordPreCorefAnalytic.COREF_VALIDATION_PROPERTY, Boolean.FALSE.toString());
+    props.setProperty(TokenVerification.PROPERTY, this.tokenVerification.toString());
+    if (this.isSentenceAlignmentTrusted)
+      props.setProperty(ConcreteStanfordPreCorefAnalytic.SENTENCE_VALIDATION_PROPERTY, Boolean.FALSE.toString());
+    if (this.modelLoadingThreads != null)
+      props.setProperty(ConcreteStanfordPreCorefAnalytic.MODEL_LOADING_THREADS_PROPERTY, this.modelLoadingThreads.toString());
+    return props;
+  }
+
+  /**
+   * Log the statistics of each analytic that keeps them.
+   *
+   * @param analytics the analytics to report on
+   */
+  public static void logStatistics(List<Analytic<? extends WrappedCommunication>> analytics) {
+    for (Analytic<? extends WrappedCommunication> a : analytics)
+      if (a instanceof StatisticsReporting) {
+        LOGGER.info("Statistics for analytic: {}", a.getClass().getSimpleName());
+        ((StatisticsReporting) a).getStatistics().log(LOGGER);
+      }
+  }
+
   public void handleStdErr() throws UnsupportedEncodingException {
     if (!this.isStdErrEnabled)
       this.errDisabler.disable();
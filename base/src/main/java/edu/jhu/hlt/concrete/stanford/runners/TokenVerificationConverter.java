@@ -0,0 +1,18 @@
+package edu.jhu.hlt.concrete.stanford.runners;
+
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.ParameterException;
+
+import edu.jhu.hlt.concrete.stanford.languages.TokenVerification;
+
+public class TokenVerificationConverter implements IStringConverter<TokenVerification> {
+
+  @Override
+  public TokenVerification convert(String value) {
+    try {
+      return TokenVerification.getEnumeration(value);
+    } catch (Exception e) {
+      throw new ParameterException("Invalid token verification: " + value);
+    }
+  }
+}
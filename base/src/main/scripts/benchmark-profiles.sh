@@ -0,0 +1,26 @@
+#!/usr/bin/env sh
+#######################################################
+### Runs PipelineThroughputBenchmark once per profile
+### and prints a markdown table of the results,
+### suitable for docs/performance.md.
+###
+### Run from the base directory.
+###
+### Arg 1 (optional): language (default: en)
+### Arg 2 (optional): timed rounds (default: 10)
+#######################################################
+LANG_ARG=${1:-en}
+ROUNDS=${2:-10}
+
+mvn -B -q test-compile || exit 1
+
+echo "| Profile | Documents/second | Tokens/second |"
+echo "| :------ | ---------------: | ------------: |"
+for P in fast balanced full; do
+    LINE=$(mvn -B -q exec:java -Dexec.classpathScope=test \
+        -Dexec.mainClass=edu.jhu.hlt.concrete.stanford.PipelineThroughputBenchmark \
+        -Dexec.args="$LANG_ARG $P $ROUNDS" 2>&1 | grep "Throughput:" | tail -n 1)
+    DOCS=$(echo "$LINE" | sed -n 's/.*Throughput: \([0-9.E-]*\) documents.*/\1/p')
+    TOKS=$(echo "$LINE" | sed -n 's/.*; \([0-9.E-]*\) tokens.*/\1/p')
+    echo "| \`$P\` | ${DOCS:-failed} | ${TOKS:-failed} |"
+done
@@ -0,0 +1,44 @@
+#!/usr/bin/env sh
+#######################################################
+### Times the startup of the Thrift server, with and
+### without an AppCDS archive (see cds-archive.sh),
+### and prints a markdown table of the results,
+### suitable for docs/performance.md.
+###
+### Each run loads the models, runs one warm-up round,
+### and exits (--warmup-only), so the times include
+### model loading; the difference is class loading.
+###
+### Arg 1: path to the annotate uberjar
+### Arg 2: path to the archive
+### Arg 3 (optional): language (default: en)
+### Arg 4 (optional): runs per configuration (default: 3)
+#######################################################
+JAR=$1
+ARCHIVE=$2
+LANG_ARG=${3:-en}
+RUNS=${4:-3}
+
+ARGS="--language $LANG_ARG --warmup-only --warmup-max-rounds 1"
+
+run() {
+    START=$(date +%s%N)
+    java $JAVA_OPTS "$@" -jar "$JAR" $ARGS > /dev/null 2>&1 || return 1
+    END=$(date +%s%N)
+    echo $(( (END - START) / 1000000 ))
+}
+
+shared() {
+    java $JAVA_OPTS "$@" -Xlog:class+load=info -jar "$JAR" $ARGS 2>/dev/null \
+        | grep -c "source: shared objects file"
+}
+
+echo "| Configuration | Run | Startup (ms) | Classes from archive |"
+echo "| :------------ | --: | -----------: | -------------------: |"
+for I in $(seq 1 "$RUNS"); do
+    echo "| no archive | $I | $(run -Xshare:off || echo failed) | 0 |"
+done
+COUNT=$(shared -XX:SharedArchiveFile="$ARCHIVE")
+for I in $(seq 1 "$RUNS"); do
+    echo "| AppCDS | $I | $(run -XX:SharedArchiveFile="$ARCHIVE" -Xshare:on || echo failed) | $COUNT |"
+done
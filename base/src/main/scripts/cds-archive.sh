@@ -0,0 +1,35 @@
+#!/usr/bin/env sh
+#######################################################
+### Builds an application class-data-sharing (AppCDS)
+### archive for a jar, from a training run of one of
+### its main classes. Requires a JDK 11+ runtime; the
+### archive must be used with the same JVM and the
+### same classpath (jar path) it was built with.
+###
+### Arg 1: path to the jar
+### Arg 2: path at which to write the archive
+### Arg 3: main class of the training run
+### Arg 4...: arguments of the training run
+###
+### The loaded classes are appended to <archive>.classlist,
+### so running this once per main class (e.g. the server
+### and a batch runner) builds an archive covering all of
+### them. Set JAVA_OPTS for the training run, e.g. -Xmx.
+#######################################################
+JAR=$1
+ARCHIVE=$2
+MAIN=$3
+shift 3
+
+CLASSLIST="$ARCHIVE.classlist"
+TMP="$CLASSLIST.tmp"
+
+java $JAVA_OPTS -Xshare:off -XX:DumpLoadedClassList="$TMP" -cp "$JAR" "$MAIN" "$@" || exit 1
+if [ -f "$CLASSLIST" ]; then
+    cat "$CLASSLIST" >> "$TMP"
+fi
+sort -u "$TMP" > "$CLASSLIST" && rm -f "$TMP"
+echo "Training run loaded $(wc -l < "$CLASSLIST") classes (cumulative)"
+
+java -Xshare:dump -XX:SharedClassListFile="$CLASSLIST" -XX:SharedArchiveFile="$ARCHIVE" -cp "$JAR" || exit 1
+echo "Wrote archive: $ARCHIVE"
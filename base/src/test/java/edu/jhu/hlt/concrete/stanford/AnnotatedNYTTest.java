@@ -4,6 +4,10 @@
  */
 package edu.jhu.hlt.concrete.stanford;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
 import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -87,5 +91,12 @@ public class AnnotatedNYTTest {
     wc = a3.annotate(wc.getRoot());
     StanfordPostNERCommunication postNER = new StanfordPostNERCommunication(wc.getRoot());
     postNER.getEntityMentions().forEach(em -> LOGGER.info("Got EM: {}", em));
+
+    // indexed, read-only views
+    assertFalse(postNER.getEntityMentions().isEmpty());
+    assertSame(postNER.getEntityMentions(), postNER.getEntityMentions());
+    postNER.getEntityMentions().forEach(em -> assertSame(em, postNER.getEntityMention(em.getUuid()).get()));
+    postNER.getTokenizations().forEach(tkz -> assertSame(tkz, postNER.getTokenization(tkz.getUuid()).get()));
+    assertEquals(postNER.getPOSTaggings(), postNER.getTaggings("pos"));
   }
 }
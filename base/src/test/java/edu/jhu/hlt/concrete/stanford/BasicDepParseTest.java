@@ -8,6 +8,8 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -26,7 +28,9 @@ import edu.jhu.hlt.concrete.TextSpan;
 import edu.jhu.hlt.concrete.Token;
 import edu.jhu.hlt.concrete.Tokenization;
 import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
+import edu.jhu.hlt.concrete.stanford.languages.DependencyRepresentation;
 import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineProfile;
 import edu.jhu.hlt.concrete.uuid.UUIDFactory;
 
 /**
@@ -158,4 +162,16 @@ public class BasicDepParseTest {
     LOGGER.debug("hyp = {}", hyp);
     assertTrue(gold.equals(hyp));
   }
+
+  @Test
+  public void basicDependenciesOnly() throws Exception {
+    Properties overrides = new Properties();
+    overrides.setProperty(DependencyRepresentation.PROPERTY, DependencyRepresentation.BASIC.toString());
+    ConcreteStanfordPreCorefAnalytic basicOnly = PipelineLanguage.ENGLISH
+        .getPreCorefAnalytic(PipelineProfile.FULL, Optional.empty(), overrides);
+    Communication c = basicOnly.annotate(this.preAnalytic.annotate(getTestCommunication())).getRoot();
+    Tokenization tkz = c.getSectionList().get(0).getSentenceList().get(0).getTokenization();
+    Assert.assertEquals(1, tkz.getDependencyParseListSize());
+    Assert.assertEquals(getExpectedBasicDependencies(), getObservedBasicDependencies(c));
+  }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Timing and allocation measurement shared by the benchmarks in this package.
+ * <br>
+ * <br>
+ * The benchmarks are not part of the test suite. Each has a <code>main</code>
+ * method, and is run from the <code>base</code> directory with, e.g.:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=edu.jhu.hlt.concrete.stanford.PipelineThroughputBenchmark \
+ *   -Dexec.args="en balanced 20"
+ * </pre>
+ * A {@link Measurement} runs untimed warm-up rounds, for the JIT, and then
+ * timed rounds on the calling thread, reading HotSpot's per-thread counters;
+ * so a HotSpot JVM is required. This suits benchmarks whose rounds take
+ * seconds, e.g. whole pipelines; micro-benchmarks, such as
+ * {@link ConversionAllocationBenchmark}, use JMH instead.
+ */
+final class Benchmarks {
+
+  private static final com.sun.management.ThreadMXBean MX =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private Benchmarks() {
+  }
+
+  /**
+   * One round of a benchmark.
+   */
+  interface Round {
+    /**
+     * @return the number of items (e.g., tokens or sentences) processed, for per-item figures
+     */
+    long run() throws Exception;
+  }
+
+  /**
+   * The cost of the timed rounds of {@link Benchmarks#measure(int, int, Round)}.
+   */
+  static final class Measurement {
+
+    private final int rounds;
+    private final long items;
+    private final long nanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+
+    private Measurement(int rounds, long items, long nanos, long cpuNanos, long allocatedBytes) {
+      this.rounds = rounds;
+      this.items = items;
+      this.nanos = nanos;
+      this.cpuNanos = cpuNanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    int getRounds() {
+      return this.rounds;
+    }
+
+    /**
+     * @return the sum of the items of every timed round
+     */
+    long getItems() {
+      return this.items;
+    }
+
+    /**
+     * @return the wall-clock time, in nanoseconds
+     */
+    long getNanos() {
+      return this.nanos;
+    }
+
+    /**
+     * @return the CPU time of the calling thread, in nanoseconds
+     */
+    long getCpuNanos() {
+      return this.cpuNanos;
+    }
+
+    /**
+     * @return the bytes allocated by the calling thread
+     */
+    long getAllocatedBytes() {
+      return this.allocatedBytes;
+    }
+
+    double getSeconds() {
+      return this.nanos / 1e9d;
+    }
+
+    double getMicrosPerRound() {
+      return this.nanos / 1000d / this.rounds;
+    }
+  }
+
+  /**
+   * @param warmUpRounds the number of untimed rounds
+   * @param rounds the number of timed rounds
+   * @param r the round to run
+   * @return the cost of the timed rounds
+   */
+  static Measurement measure(int warmUpRounds, int rounds, Round r) throws Exception {
+    for (int i = 0; i < warmUpRounds; i++)
+      r.run();
+
+    final long tid = Thread.currentThread().getId();
+    final long bytes = MX.getThreadAllocatedBytes(tid);
+    final long cpu = MX.getCurrentThreadCpuTime();
+    final long start = System.nanoTime();
+    long items = 0L;
+    for (int i = 0; i < rounds; i++)
+      items += r.run();
+    final long ns = System.nanoTime() - start;
+    return new Measurement(rounds, items, ns, MX.getCurrentThreadCpuTime() - cpu,
+        MX.getThreadAllocatedBytes(tid) - bytes);
+  }
+
+  /**
+   * @return the sum of the peak usage of the heap's memory pools since {@link #resetPeakHeap()}
+   */
+  static long peakHeap() {
+    long peak = 0L;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+      if (pool.getType() == MemoryType.HEAP)
+        peak += pool.getPeakUsage().getUsed();
+    return peak;
+  }
+
+  /**
+   * Collects garbage, and resets the peak usage of the heap's memory pools.
+   */
+  static void resetPeakHeap() {
+    System.gc();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+      if (pool.getType() == MemoryType.HEAP)
+        pool.resetPeakUsage();
+  }
+
+  /**
+   * @return the <code>i</code>th argument as an integer, or <code>defaultValue</code> if there is none
+   */
+  static int intArg(String[] args, int i, int defaultValue) {
+    return args.length > i ? Integer.parseInt(args[i]) : defaultValue;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.Section;
+import edu.jhu.hlt.concrete.TextSpan;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+import edu.jhu.hlt.concrete.uuid.UUIDFactory;
+
+public class ChunkedTokenizationTest {
+
+  private static final String PARAGRAPH = "John ran fast. Mary did not run at all.\n\n";
+
+  private static List<String> sentenceSpans(Communication c) {
+    return c.getSectionList().stream()
+        .flatMap(s -> s.getSentenceList().stream())
+        .map(st -> st.getTextSpan().getStart() + "-" + st.getTextSpan().getEnding()
+            + ":" + st.getTokenization().getTokenList().getTokenListSize())
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void chunkEndPrefersBlankLines() {
+    final String text = "aaaa bbbb\n\ncccc dddd\neeee";
+    assertEquals(11, ConcreteStanfordTokensSentenceAnalytic.chunkEnd(text, 0, text.length(), 18));
+    assertEquals(21, ConcreteStanfordTokensSentenceAnalytic.chunkEnd(text, 11, text.length(), 12));
+    assertEquals(text.length(), ConcreteStanfordTokensSentenceAnalytic.chunkEnd(text, 21, text.length(), 12));
+    assertEquals(4, ConcreteStanfordTokensSentenceAnalytic.chunkEnd("aaaaaaaa", 0, 8, 4));
+  }
+
+  @Test
+  public void chunkEndKeepsSurrogatePairs() {
+    // U+1F600, as a surrogate pair
+    final String text = "a\ud83d\ude00bc";
+    assertEquals(1, ConcreteStanfordTokensSentenceAnalytic.chunkEnd(text, 0, text.length(), 2));
+    assertEquals(3, ConcreteStanfordTokensSentenceAnalytic.chunkEnd(text, 1, text.length(), 1));
+    assertEquals(3, ConcreteStanfordTokensSentenceAnalytic.chunkEnd(text, 1, text.length(), 2));
+    assertEquals(4, ConcreteStanfordTokensSentenceAnalytic.chunkEnd(text, 3, text.length(), 1));
+  }
+
+  @Test
+  public void chunkedMatchesWhole() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 20; i++)
+      sb.append(PARAGRAPH);
+    final String text = sb.toString();
+    Communication c = new Communication().setUuid(UUIDFactory.newUUID()).setId("chunked").setText(text);
+    c.addToSectionList(new Section(UUIDFactory.newUUID(), "Passage").setTextSpan(new TextSpan(0, text.length())));
+
+    Properties overrides = new Properties();
+    overrides.setProperty(ConcreteStanfordTokensSentenceAnalytic.CHUNK_SIZE_PROPERTY, "100");
+    Communication whole = PipelineLanguage.ENGLISH.getSentenceTokenizationAnalytic().annotate(c).getRoot();
+    Communication chunked = PipelineLanguage.ENGLISH.getSentenceTokenizationAnalytic(overrides).annotate(c).getRoot();
+    assertEquals(40, sentenceSpans(whole).size());
+    assertEquals(sentenceSpans(whole), sentenceSpans(chunked));
+  }
+}
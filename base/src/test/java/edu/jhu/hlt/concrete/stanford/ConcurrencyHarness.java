@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.TSerializer;
+import org.apache.thrift.protocol.TSimpleJSONProtocol;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.analytics.base.Analytic;
+import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
+
+/**
+ * Annotates a corpus from several threads at once, and checks that each
+ * output is the same as when it is annotated alone.
+ * <br>
+ * <br>
+ * Outputs are compared as JSON, with timestamps zeroed and each UUID replaced
+ * by the order of its first appearance in the document. UUIDs that refer to
+ * the same object still match after that, and UUIDs that differ still differ.
+ */
+class ConcurrencyHarness {
+
+  private static final Pattern UUID = Pattern.compile("\"uuidString\":\"([^\"]*)\"");
+  private static final Pattern TIMESTAMP = Pattern.compile("\"timestamp\":-?\\d+");
+
+  private final Analytic<? extends TokenizedCommunication> tokenizer;
+  private final Analytic<? extends TokenizedCommunication> annotator;
+
+  /**
+   * @param tokenizer the tokenization analytic, shared by every thread
+   * @param annotator the annotation analytic, e.g. a {@link PooledAnalytic}
+   */
+  ConcurrencyHarness(Analytic<? extends TokenizedCommunication> tokenizer, Analytic<? extends TokenizedCommunication> annotator) {
+    this.tokenizer = tokenizer;
+    this.annotator = annotator;
+  }
+
+  /**
+   * @return <code>c</code>, annotated, and rendered for comparison
+   */
+  String annotate(Communication c) throws Exception {
+    return normalize(this.annotator.annotate(this.tokenizer.annotate(c).getRoot()).getRoot());
+  }
+
+  static String normalize(Communication c) throws TException {
+    final String json = TIMESTAMP.matcher(new TSerializer(new TSimpleJSONProtocol.Factory()).toString(c))
+        .replaceAll("\"timestamp\":0");
+    Map<String, Integer> ids = new HashMap<>();
+    Matcher m = UUID.matcher(json);
+    StringBuffer sb = new StringBuffer(json.length());
+    while (m.find()) {
+      Integer id = ids.computeIfAbsent(m.group(1), k -> ids.size());
+      m.appendReplacement(sb, "\"uuidString\":\"" + id + "\"");
+    }
+    m.appendTail(sb);
+    return sb.toString();
+  }
+
+  /**
+   * @return the output for each document of the corpus, annotated one after another
+   */
+  List<String> baseline(List<Communication> corpus) throws Exception {
+    List<String> out = new ArrayList<>(corpus.size());
+    for (Communication c : corpus)
+      out.add(this.annotate(c));
+    return out;
+  }
+
+  /**
+   * Annotates <code>rounds</code> copies of the corpus on <code>threads</code> threads.
+   *
+   * @param expected the output of {@link #baseline(List)}
+   * @return documents annotated per second
+   * @throws AssertionError if a document's output differs from its baseline
+   */
+  double run(List<Communication> corpus, List<String> expected, int threads, int rounds) throws Exception {
+    ExecutorService exec = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<String>> outputs = new ArrayList<>();
+      final long start = System.nanoTime();
+      for (int r = 0; r < rounds; r++)
+        for (Communication c : corpus)
+          outputs.add(exec.submit(() -> this.annotate(c)));
+      for (int i = 0; i < outputs.size(); i++) {
+        final int doc = i % corpus.size();
+        if (!expected.get(doc).equals(outputs.get(i).get()))
+          throw new AssertionError("Output of document " + corpus.get(doc).getId() + " differs on "
+              + threads + " threads from its output on one");
+      }
+      final double seconds = (System.nanoTime() - start) / 1e9d;
+      return outputs.size() / seconds;
+    } finally {
+      exec.shutdownNow();
+    }
+  }
+}
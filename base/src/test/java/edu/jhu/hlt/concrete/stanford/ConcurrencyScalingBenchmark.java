@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+
+/**
+ * Reports the throughput of a language's analytics on its test corpus at 1, 2,
+ * 4, 8 and 16 threads, each with a {@link PooledAnalytic} of as many copies,
+ * and checks every output against the output of the same document annotated alone.
+ * <br>
+ * <br>
+ * English runs coreference, so each copy loads its own coreference model. Run
+ * as described in {@link Benchmarks}, with room for 16 in <code>-Xmx</code>
+ * (e.g., <code>MAVEN_OPTS=-Xmx16g</code>). Arguments are the language, and the number of copies of the corpus annotated per thread.
+ */
+public class ConcurrencyScalingBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrencyScalingBenchmark.class);
+
+  private static final int[] THREADS = new int[] { 1, 2, 4, 8, 16 };
+
+  public static void main(String[] args) throws Exception {
+    final PipelineLanguage lang = PipelineLanguage.getEnumeration(args.length > 0 ? args[0] : "en");
+    final int rounds = Benchmarks.intArg(args, 1, 5);
+    final List<Communication> corpus = TestCorpora.of(lang);
+    final ConcreteStanfordTokensSentenceAnalytic tokenizer = lang.getSentenceTokenizationAnalytic();
+    final ConcreteStanfordPreCorefAnalytic analytic = lang.supportsCoref()
+        ? lang.getAllAnalytic() : lang.getPreCorefAnalytic();
+
+    // the baseline run is also the warm-up
+    final List<String> expected = new ConcurrencyHarness(tokenizer, analytic).baseline(corpus);
+    // copies are made once, and pooled in turn
+    final List<ConcreteStanfordPreCorefAnalytic> copies = new ArrayList<>();
+    copies.add(analytic);
+    while (copies.size() < THREADS[THREADS.length - 1])
+      copies.add(analytic.replicate());
+
+    double single = 0d;
+    for (int threads : THREADS) {
+      ConcurrencyHarness h = new ConcurrencyHarness(tokenizer,
+          new PooledAnalytic<TokenizedCommunication>(copies.subList(0, threads), 0L));
+      final double docsPerSecond = h.run(corpus, expected, threads, rounds * threads);
+      if (threads == 1)
+        single = docsPerSecond;
+      LOGGER.info("Language: {}; threads: {}; {} documents/second; speedup: {}", lang, threads,
+          String.format("%.2f", docsPerSecond), String.format("%.2f", docsPerSecond / single));
+    }
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+
+/**
+ * Annotates the test corpora on several threads at once, through a
+ * {@link PooledAnalytic}, and checks every output against the output of
+ * the same document annotated alone. English runs coreference.
+ */
+public class ConcurrencyTest {
+
+  private static final int THREADS = 4;
+  private static final int ROUNDS = 2;
+
+  static PooledAnalytic<TokenizedCommunication> pool(ConcreteStanfordPreCorefAnalytic a, int size) {
+    List<ConcreteStanfordPreCorefAnalytic> members = new ArrayList<>(size);
+    members.add(a);
+    for (int i = 1; i < size; i++)
+      members.add(a.replicate());
+    return new PooledAnalytic<>(members, 0L);
+  }
+
+  private static void check(PipelineLanguage lang, boolean coref, int poolSize) throws Exception {
+    List<Communication> corpus = TestCorpora.of(lang);
+    // the tokenizer is built first: see ConcreteStanfordPreCorefAnalytic
+    ConcreteStanfordTokensSentenceAnalytic tokenizer = lang.getSentenceTokenizationAnalytic();
+    ConcreteStanfordPreCorefAnalytic a = coref ? lang.getAllAnalytic() : lang.getPreCorefAnalytic();
+    ConcurrencyHarness h = new ConcurrencyHarness(tokenizer, pool(a, poolSize));
+    h.run(corpus, h.baseline(corpus), THREADS, ROUNDS);
+  }
+
+  @Test
+  public void english() throws Exception {
+    // fewer copies than threads: each copy loads its own coreference model
+    check(PipelineLanguage.ENGLISH, true, 2);
+  }
+
+  @Test
+  public void spanish() throws Exception {
+    check(PipelineLanguage.SPANISH, false, THREADS);
+  }
+
+  @Test
+  public void chinese() throws Exception {
+    check(PipelineLanguage.CHINESE, false, THREADS);
+  }
+}
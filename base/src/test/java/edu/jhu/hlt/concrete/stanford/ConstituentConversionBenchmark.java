@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.jhu.hlt.concrete.Constituent;
+import edu.jhu.hlt.concrete.Parse;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.trees.HeadFinder;
+import edu.stanford.nlp.trees.LabeledScoredTreeFactory;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeFactory;
+
+/**
+ * Compares the time to convert long sentences' trees to {@link Constituent}s
+ * with {@link PreNERCoreMapWrapper#constructConstituents(Tree, int, HeadFinder)}
+ * and with the previous recursive conversion, which counted the leaves of
+ * every subtree. Run as described in {@link Benchmarks}; the argument is the number of timed conversions per tree.
+ */
+public class ConstituentConversionBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConstituentConversionBenchmark.class);
+
+  private static final TreeFactory TF = new LabeledScoredTreeFactory();
+
+  private static final HeadFinder RIGHTMOST = new HeadFinder() {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Tree determineHead(Tree t) {
+      return t.children()[t.numChildren() - 1];
+    }
+
+    @Override
+    public Tree determineHead(Tree t, Tree parent) {
+      return this.determineHead(t);
+    }
+  };
+
+  private static List<CoreLabel> tokens(int n) {
+    List<CoreLabel> cls = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      CoreLabel cl = new CoreLabel();
+      cl.setWord("w" + i);
+      cl.setValue("w" + i);
+      cl.setTag("NN");
+      cls.add(cl);
+    }
+    return cls;
+  }
+
+  private static Tree balanced(List<Tree> pts, int from, int to) {
+    if (to - from == 1)
+      return pts.get(from);
+    final int mid = (from + to) / 2;
+    List<Tree> kids = new ArrayList<>(2);
+    kids.add(balanced(pts, from, mid));
+    kids.add(balanced(pts, mid, to));
+    return TF.newTreeNode("NP", kids);
+  }
+
+  private static Tree balancedTree(int n) {
+    List<Tree> pts = new ArrayList<>(n);
+    for (CoreLabel cl : tokens(n))
+      pts.add(TF.newTreeNode("NN", Collections.singletonList(TF.newLeaf(cl.word()))));
+    List<Tree> root = new ArrayList<>(1);
+    root.add(balanced(pts, 0, n));
+    return TF.newTreeNode("ROOT", root);
+  }
+
+  /**
+   * The conversion as it was before it was made iterative.
+   */
+  private static int recursive(Tree root, int left, int right, Parse p, HeadFinder hf) {
+    Constituent constituent = new Constituent();
+    constituent.setId(p.getConstituentListSize());
+    constituent.setTag(root.value());
+    constituent.setStart(left);
+    constituent.setEnding(right);
+    p.addToConstituentList(constituent);
+    Tree headTree = root.isLeaf() ? null : hf.determineHead(root);
+    int i = 0, headTreeIdx = -1;
+    int leftPtr = left;
+    for (Tree child : root.getChildrenAsList()) {
+      int width = child.getLeaves().size();
+      int childId = recursive(child, leftPtr, leftPtr + width, p, hf);
+      constituent.addToChildList(childId);
+      leftPtr += width;
+      if (headTree != null && child == headTree)
+        headTreeIdx = i;
+      i++;
+    }
+    if (headTreeIdx >= 0)
+      constituent.setHeadChildIndex(headTreeIdx);
+    if (!constituent.isSetChildList())
+      constituent.setChildList(new ArrayList<Integer>());
+    return constituent.getId();
+  }
+
+  private static void compare(String shape, Tree t, int n, int rounds) throws Exception {
+    Parse p = new Parse();
+    recursive(t, 0, n, p, RIGHTMOST);
+    if (!p.getConstituentList().equals(PreNERCoreMapWrapper.constructConstituents(t, n, RIGHTMOST)))
+      throw new IllegalStateException("Conversions differ for " + shape + " tree of length " + n);
+
+    final double rec = Benchmarks.measure(rounds, rounds,
+        () -> recursive(t, 0, n, new Parse(), RIGHTMOST)).getMicrosPerRound();
+    final double it = Benchmarks.measure(rounds, rounds,
+        () -> PreNERCoreMapWrapper.constructConstituents(t, n, RIGHTMOST).size()).getMicrosPerRound();
+    LOGGER.info("{} tree, {} tokens: recursive {} us/tree; iterative {} us/tree",
+        shape, n, String.format("%.1f", rec), String.format("%.1f", it));
+  }
+
+  public static void main(String[] args) throws Exception {
+    final int rounds = Benchmarks.intArg(args, 0, 1000);
+    for (int n : new int[] { 25, 50, 100, 200, 400 }) {
+      compare("balanced", balancedTree(n), n, rounds);
+      compare("right-branching", ParseAdmission.rightBranchingTree(tokens(n)), n, rounds);
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.Dependency;
+import edu.jhu.hlt.concrete.Token;
+import edu.jhu.hlt.concrete.TokenTagging;
+import edu.jhu.hlt.concrete.metadata.AnnotationMetadataFactory;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+import edu.jhu.hlt.concrete.tokenization.DependencyFactory;
+import edu.jhu.hlt.concrete.tokenization.TokenTaggingFactory;
+import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory;
+import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory.AnalyticUUIDGenerator;
+import edu.stanford.nlp.ling.CoreAnnotations.PartOfSpeechAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.SentencesAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.TokensAnnotation;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.ling.IndexedWord;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import edu.stanford.nlp.semgraph.SemanticGraph;
+import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation;
+import edu.stanford.nlp.semgraph.SemanticGraphEdge;
+import edu.stanford.nlp.trees.GrammaticalRelation;
+import edu.stanford.nlp.util.CoreMap;
+
+/**
+ * Compares the bytes allocated per pass over the English benchmark corpus by
+ * the Stanford to Concrete conversion of tokens, tags and dependencies, with
+ * and without a {@link ConversionContext}.
+ * <br>
+ * <br>
+ * The previous conversion, through {@link PreNERCoreLabelWrapper} and a
+ * regex per relation, is reproduced here. The token conversion with a context
+ * also builds each {@link edu.jhu.hlt.concrete.Sentence} and its
+ * {@link edu.jhu.hlt.concrete.Tokenization}, so its figures are an upper bound.
+ * A JMH benchmark; {@link #main(String[])} runs it with the GC profiler, whose
+ * <code>gc.alloc.rate.norm</code> is the bytes allocated per pass. Run from the
+ * <code>base</code> directory with:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *   -Dexec.args="-cp %classpath edu.jhu.hlt.concrete.stanford.ConversionAllocationBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ConversionAllocationBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConversionAllocationBenchmark.class);
+
+  private List<CoreMap> sentences;
+
+  private static int legacyTokens(List<CoreMap> sentences) throws Exception {
+    AnalyticUUIDGenerator g = new AnalyticUUIDGeneratorFactory().create();
+    int n = 0;
+    for (CoreMap cm : sentences) {
+      TokenTagging nerTT = new TokenTaggingFactory(g).create("NER").setMetadata(AnnotationMetadataFactory.fromCurrentLocalTime().setTool("Stanford CoreNLP"));
+      TokenTagging posTT = new TokenTaggingFactory(g).create("POS").setMetadata(AnnotationMetadataFactory.fromCurrentLocalTime().setTool("Stanford CoreNLP"));
+      TokenTagging lemmaTT = new TokenTaggingFactory(g).create("LEMMA").setMetadata(AnnotationMetadataFactory.fromCurrentLocalTime().setTool("Stanford CoreNLP"));
+      List<Token> tokList = new ArrayList<>();
+      for (CoreLabel cl : cm.get(TokensAnnotation.class)) {
+        if (cl.keySet().contains(PartOfSpeechAnnotation.class)) {
+          PreNERCoreLabelWrapper wrapper = new PreNERCoreLabelWrapper(cl);
+          tokList.add(wrapper.getOrig().toConcreteToken(0));
+          wrapper.toPOSToken().ifPresent(tt -> posTT.addToTaggedTokenList(tt));
+          wrapper.toNERToken().ifPresent(tt -> nerTT.addToTaggedTokenList(tt));
+          wrapper.toLemmaToken().ifPresent(tt -> lemmaTT.addToTaggedTokenList(tt));
+        } else {
+          tokList.add(new TokenizedCoreLabelWrapper(cl).toConcreteToken(0));
+        }
+      }
+      n += tokList.size();
+    }
+    return n;
+  }
+
+  private static int contextTokens(List<CoreMap> sentences) throws Exception {
+    ConversionContext ctx = new ConversionContext(new AnalyticUUIDGeneratorFactory().create());
+    int n = 0;
+    for (CoreMap cm : sentences)
+      n += new CoreMapWrapper(cm, ctx).toSentence(0).getTokenization().getTokenList().getTokenListSize();
+    return n;
+  }
+
+  private static int legacyDependencies(List<CoreMap> sentences) {
+    int n = 0;
+    for (CoreMap cm : sentences) {
+      SemanticGraph graph = cm.get(CollapsedCCProcessedDependenciesAnnotation.class);
+      List<Dependency> depList = new ArrayList<Dependency>();
+      for (IndexedWord root : graph.getRoots())
+        depList.add(DependencyFactory.create(root.index() - 1, GrammaticalRelation.ROOT.getLongName().replaceAll("\\s+", "")));
+      for (SemanticGraphEdge edge : graph.edgeListSorted())
+        depList.add(DependencyFactory.create(edge.getTarget().index() - 1,
+            edge.getRelation().toString().replaceAll("\\s+", ""), edge.getSource().index() - 1));
+      n += depList.size();
+    }
+    return n;
+  }
+
+  private static int contextDependencies(List<CoreMap> sentences) {
+    ConversionContext ctx = new ConversionContext(new AnalyticUUIDGeneratorFactory().create());
+    int n = 0;
+    for (CoreMap cm : sentences) {
+      SemanticGraph graph = cm.get(CollapsedCCProcessedDependenciesAnnotation.class);
+      List<Dependency> depList = new ArrayList<Dependency>(graph.size() + 1);
+      for (IndexedWord root : graph.getRoots())
+        depList.add(DependencyFactory.create(root.index() - 1, ctx.getRootRelation()));
+      for (SemanticGraphEdge edge : graph.edgeListSorted())
+        depList.add(DependencyFactory.create(edge.getTarget().index() - 1,
+            ctx.getRelation(edge.getRelation()), edge.getSource().index() - 1));
+      n += depList.size();
+    }
+    return n;
+  }
+
+  @Setup
+  public void annotate() throws Exception {
+    Properties props = new Properties();
+    props.setProperty("annotators", "tokenize, ssplit, pos, lemma, ner, parse");
+    StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
+    this.sentences = new ArrayList<>();
+    for (Communication c : TestCorpora.benchmark(PipelineLanguage.ENGLISH)) {
+      Annotation anno = new Annotation(c.getText());
+      pipeline.annotate(anno);
+      this.sentences.addAll(anno.get(SentencesAnnotation.class));
+    }
+    LOGGER.info("Converting {} sentences per pass", this.sentences.size());
+  }
+
+  @Benchmark
+  public int tokensLegacy() throws Exception {
+    return legacyTokens(this.sentences);
+  }
+
+  @Benchmark
+  public int tokensContext() throws Exception {
+    return contextTokens(this.sentences);
+  }
+
+  @Benchmark
+  public int dependenciesLegacy() {
+    return legacyDependencies(this.sentences);
+  }
+
+  @Benchmark
+  public int dependenciesContext() {
+    return contextDependencies(this.sentences);
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+        .include(ConversionAllocationBenchmark.class.getName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
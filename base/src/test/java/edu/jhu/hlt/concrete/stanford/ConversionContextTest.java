@@ -0,0 +1,29 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import org.junit.Test;
+
+import edu.jhu.hlt.concrete.AnnotationMetadata;
+import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory;
+
+public class ConversionContextTest {
+
+  @Test
+  public void metadataIsNotShared() {
+    ConversionContext ctx = new ConversionContext(new AnalyticUUIDGeneratorFactory().create());
+    AnnotationMetadata first = ctx.getMetadata("tool");
+    AnnotationMetadata second = ctx.getMetadata("tool");
+    assertNotSame(first, second);
+    assertEquals(first, second);
+
+    first.setKBest(2);
+    assertEquals(1, ctx.getMetadata("tool").getKBest());
+    assertEquals(first.getTimestamp(), ctx.getMetadata("other").getTimestamp());
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import edu.jhu.hlt.concrete.AnnotationMetadata;
+import edu.jhu.hlt.concrete.Section;
+import edu.jhu.hlt.concrete.Sentence;
+import edu.jhu.hlt.concrete.TextSpan;
+import edu.jhu.hlt.concrete.Token;
+import edu.jhu.hlt.concrete.TokenList;
+import edu.jhu.hlt.concrete.Tokenization;
+import edu.jhu.hlt.concrete.TokenizationKind;
+import edu.jhu.hlt.concrete.analytics.base.AnalyticException;
+import edu.jhu.hlt.concrete.stanford.languages.DependencyRepresentation;
+import edu.jhu.hlt.concrete.stanford.languages.TokenVerification;
+import edu.jhu.hlt.concrete.uuid.AnalyticUUIDGeneratorFactory;
+import edu.jhu.hlt.concrete.uuid.UUIDFactory;
+import edu.stanford.nlp.util.CoreMap;
+
+public class CoreMapWrapperTest {
+
+  private static final String TEXT = "Hello world .";
+
+  private static Token token(int i, int start, int end) {
+    return new Token(i).setText(TEXT.substring(start, end)).setTextSpan(new TextSpan(start, end));
+  }
+
+  private static Sentence sentence() {
+    TokenList tl = new TokenList();
+    tl.addToTokenList(token(0, 0, 5));
+    tl.addToTokenList(token(1, 6, 11));
+    tl.addToTokenList(token(2, 12, 13));
+    Tokenization tkz = new Tokenization(UUIDFactory.newUUID(), new AnnotationMetadata("test", 1L, 1), TokenizationKind.TOKEN_LIST)
+        .setTokenList(tl);
+    return new Sentence(UUIDFactory.newUUID()).setTextSpan(new TextSpan(0, TEXT.length())).setTokenization(tkz);
+  }
+
+  private static CoreMap coreMap(Sentence st) {
+    Section sect = new Section(UUIDFactory.newUUID(), "Passage").setTextSpan(new TextSpan(0, TEXT.length()));
+    sect.addToSentenceList(new Sentence(st));
+    return ConcreteToStanfordMapper.concreteSectionToCoreMapList(sect, TEXT).get(0);
+  }
+
+  private static Sentence merge(CoreMap cm, Sentence orig, TokenVerification v) throws AnalyticException {
+    ConversionContext ctx = new ConversionContext(new AnalyticUUIDGeneratorFactory().create(),
+        EnumSet.allOf(DependencyRepresentation.class), v);
+    return new CoreMapWrapper(cm, ctx).toSentence(0, orig);
+  }
+
+  @Test
+  public void matchingTokensPassEveryMode() throws Exception {
+    for (TokenVerification v : TokenVerification.values()) {
+      Sentence st = sentence();
+      Sentence merged = merge(coreMap(st), st, v);
+      assertEquals(3, merged.getTokenization().getTokenList().getTokenListSize());
+    }
+  }
+
+  @Test(expected = AnalyticException.class)
+  public void fingerprintCatchesShiftedOffsets() throws Exception {
+    Sentence st = sentence();
+    CoreMap cm = coreMap(st);
+    st.getTokenization().getTokenList().getTokenList().get(1).setTextSpan(new TextSpan(5, 11));
+    merge(cm, st, TokenVerification.FINGERPRINT);
+  }
+
+  @Test
+  public void trustKeepsInputTokens() throws Exception {
+    Sentence st = sentence();
+    CoreMap cm = coreMap(st);
+    st.getTokenization().getTokenList().getTokenList().get(1).setTextSpan(new TextSpan(5, 11));
+    Sentence merged = merge(cm, st, TokenVerification.TRUST);
+    assertEquals(5, merged.getTokenization().getTokenList().getTokenList().get(1).getTextSpan().getStart());
+  }
+
+  @Test(expected = AnalyticException.class)
+  public void fullCatchesChangedText() throws Exception {
+    Sentence st = sentence();
+    CoreMap cm = coreMap(st);
+    st.getTokenization().getTokenList().getTokenList().get(1).setText("World");
+    merge(cm, st, TokenVerification.FULL);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.jhu.hlt.concrete.Token;
+import edu.jhu.hlt.concrete.TokenList;
+import edu.jhu.hlt.concrete.Tokenization;
+import edu.stanford.nlp.dcoref.Dictionaries.MentionType;
+
+public class CorefManagerTest {
+
+  private static Tokenization tokenization(int... indices) {
+    List<Token> tokens = new ArrayList<>();
+    for (int i : indices)
+      tokens.add(new Token(i));
+    return new Tokenization().setTokenList(new TokenList(tokens));
+  }
+
+  @Test
+  public void contiguousTokens() {
+    CorefManager.TokenIndex idx = new CorefManager.TokenIndex(tokenization(0, 1, 2, 3));
+    assertTrue(idx.containsAll(Arrays.asList(1, 2, 3)));
+    assertTrue(idx.containsAll(new ArrayList<>()));
+    assertFalse(idx.containsAll(Arrays.asList(3, 4)));
+    assertFalse(idx.contains(-1));
+  }
+
+  @Test
+  public void gappedTokens() {
+    CorefManager.TokenIndex idx = new CorefManager.TokenIndex(tokenization(0, 2, 5));
+    assertTrue(idx.containsAll(Arrays.asList(2, 5)));
+    assertFalse(idx.containsAll(Arrays.asList(0, 1)));
+    assertFalse(idx.contains(3));
+  }
+
+  private static CorefChains.Mention mention(int sentence, int start, MentionType type) {
+    return new CorefChains.Mention(sentence, start, start + 1, start, "m" + sentence + "." + start, type);
+  }
+
+  @Test
+  public void mergeChainsSharingMentions() {
+    CorefChains.Mention a = mention(0, 0, MentionType.PRONOMINAL);
+    CorefChains.Mention b = mention(3, 2, MentionType.PROPER);
+    CorefChains.Mention c = mention(5, 1, MentionType.PRONOMINAL);
+    CorefChains.Mention d = mention(1, 0, MentionType.NOMINAL);
+    List<CorefChains.Chain> chains = new ArrayList<>();
+    // windows [0, 4) and [3, 6) both see b
+    chains.add(new CorefChains.Chain(b, Arrays.asList(a, b)));
+    chains.add(new CorefChains.Chain(c, Arrays.asList(mention(3, 2, MentionType.PROPER), c)));
+    chains.add(new CorefChains.Chain(d, Arrays.asList(d)));
+
+    List<CorefChains.Chain> merged = CorefChains.merge(chains);
+    assertEquals(2, merged.size());
+    assertEquals(Arrays.asList(a, b, c), merged.get(0).mentions);
+    assertEquals(b, merged.get(0).representative);
+    assertEquals(Arrays.asList(d), merged.get(1).mentions);
+  }
+}
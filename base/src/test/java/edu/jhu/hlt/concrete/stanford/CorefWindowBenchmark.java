@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.Optional;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineProfile;
+
+/**
+ * Compares the time and peak heap usage of coreference on whole documents and
+ * on windows of sentences, over one long English document made by repeating
+ * the {@link TestCorpora#benchmark(PipelineLanguage)} corpus.
+ * <br>
+ * <br>
+ * Peak heap usage includes the loaded models; compare it against the
+ * whole-document figure, rather than read it as the cost of coreference alone.
+ * Run as described in {@link Benchmarks}, with an <code>-Xmx</code> (e.g.,
+ * <code>MAVEN_OPTS=-Xmx8g</code>) that leaves room for whole-document
+ * coreference. Arguments are the number of copies of the corpus in the
+ * document, and the window sizes to compare. Whole documents are always run
+ * first, which also warms up the JIT; pass <code>0</code> among the window
+ * sizes to time them again once warm.
+ */
+public class CorefWindowBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CorefWindowBenchmark.class);
+
+  private static Communication longDocument(int copies) throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < copies; i++)
+      for (Communication c : TestCorpora.benchmark(PipelineLanguage.ENGLISH))
+        sb.append(MarkupRewriter.removeMarkup(c.getText())).append("\n\n");
+    return BasicDepParseTest.unsectionedCommunicationFromText(sb.toString());
+  }
+
+  private static void run(Communication tokenized, int window) throws Exception {
+    Properties overrides = new Properties();
+    overrides.setProperty(ConcreteStanfordPreCorefAnalytic.COREF_WINDOW_PROPERTY, Integer.toString(window));
+    ConcreteStanfordPreCorefAnalytic analytic = PipelineLanguage.ENGLISH
+        .getAllAnalytic(PipelineProfile.FULL, Optional.empty(), overrides);
+
+    Benchmarks.resetPeakHeap();
+    final long start = System.currentTimeMillis();
+    TokenizedCommunication tc = analytic.annotate(new Communication(tokenized));
+    final long ms = System.currentTimeMillis() - start;
+    final long peakMb = Benchmarks.peakHeap() / (1024 * 1024);
+
+    RunStatistics stats = analytic.getStatistics();
+    LOGGER.info("Window {}: {} ms total; {} ms in coreference; {} windows; {} entities; {} mentions; peak heap {} MB",
+        window <= 0 ? "(none)" : window, ms, stats.get("coref.annotate.ms"), stats.get("coref.windows"),
+        tc.getRoot().getEntitySetList().get(0).getEntityListSize(),
+        tc.getRoot().getEntityMentionSetList().get(0).getMentionListSize(), peakMb);
+  }
+
+  public static void main(String[] args) throws Exception {
+    final int copies = Benchmarks.intArg(args, 0, 20);
+    Communication doc = longDocument(copies);
+    // the tokenizer is built before any pre-coref analytic: see ConcreteStanfordPreCorefAnalytic
+    Communication tokenized = PipelineLanguage.ENGLISH.getSentenceTokenizationAnalytic().annotate(doc).getRoot();
+    LOGGER.info("Document has {} sentences", tokenized.getSectionList().stream()
+        .mapToInt(s -> s.getSentenceListSize()).sum());
+
+    run(tokenized, 0);
+    for (int i = 1; i < args.length; i++)
+      run(tokenized, Integer.parseInt(args[i]));
+  }
+}
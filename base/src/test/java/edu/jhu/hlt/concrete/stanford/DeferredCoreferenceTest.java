@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.ingesters.gigaword.GigawordDocumentConverter;
+import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+
+public class DeferredCoreferenceTest {
+
+  @Test
+  public void executorRunsAtLowPriorityAndBoundsBacklog() throws Exception {
+    ExecutorService ex = DeferredCoreference.newExecutor(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger priority = new AtomicInteger();
+    ex.execute(() -> {
+      priority.set(Thread.currentThread().getPriority());
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    // fills the backlog
+    ex.execute(() -> { });
+    Thread submitter = new Thread(() -> ex.execute(() -> { }));
+    submitter.start();
+    submitter.join(200);
+    assertTrue("a full backlog should block the submitter", submitter.isAlive());
+
+    release.countDown();
+    submitter.join(5000);
+    assertFalse(submitter.isAlive());
+    ex.shutdown();
+    assertTrue(ex.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(Thread.MIN_PRIORITY, priority.get());
+  }
+
+  @Test
+  public void deferredMatchesInline() throws Exception {
+    Communication comm = new GigawordDocumentConverter().fromPath(Paths.get("src/test/resources/serif_dateline.sgml"));
+    Communication tokenized = PipelineLanguage.ENGLISH.getSentenceTokenizationAnalytic().annotate(comm).getRoot();
+    ConcreteStanfordPreCorefAnalytic analytic = PipelineLanguage.ENGLISH.getAllAnalytic();
+
+    Communication inline = analytic.annotate(tokenized).getRoot();
+    ExecutorService ex = DeferredCoreference.newExecutor(4);
+    try {
+      DeferredCoreference dc = analytic.annotateDeferringCoref(tokenized, ex);
+      Communication pre = dc.getPreCoref().getRoot();
+      assertFalse(pre.isSetEntitySetList());
+      assertTrue(dc.getCoref().isPresent());
+
+      TokenizedCommunication deferred = dc.getCoref().get().get(5, TimeUnit.MINUTES);
+      Communication withCoref = deferred.getRoot();
+      assertFalse("coreference is added to a copy", pre.isSetEntitySetList());
+      assertEquals(inline.getEntitySetList().get(0).getEntityListSize(),
+          withCoref.getEntitySetList().get(0).getEntityListSize());
+      assertEquals(inline.getEntityMentionSetList().get(0).getMentionListSize(),
+          withCoref.getEntityMentionSetList().get(0).getMentionListSize());
+    } finally {
+      ex.shutdown();
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.serialization.archiver.ArchivableCommunication;
+import edu.jhu.hlt.concrete.stanford.languages.DependencyRepresentation;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineProfile;
+
+/**
+ * Compares the CPU time and serialized size of the English pre-coref
+ * analytic's output with all dependency representations, and with a
+ * selection of them.
+ * <br>
+ * <br>
+ * CPU time is that of the calling thread, and includes parsing, which
+ * does not depend on the selection; the difference between the two runs is
+ * the cost of building, converting and serializing the unselected graphs.
+ * Run as described in {@link Benchmarks}. Arguments are the number of timed
+ * rounds over the English {@link TestCorpora#benchmark(PipelineLanguage)}
+ * corpus, and the representations to compare against all of them.
+ */
+public class DependencyRepresentationBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DependencyRepresentationBenchmark.class);
+
+  private static void run(List<Communication> tokenized, Set<DependencyRepresentation> reps, int rounds) throws Exception {
+    Properties overrides = new Properties();
+    overrides.setProperty(DependencyRepresentation.PROPERTY, DependencyRepresentation.toProperty(reps));
+    ConcreteStanfordPreCorefAnalytic analytic = PipelineLanguage.ENGLISH
+        .getPreCorefAnalytic(PipelineProfile.FULL, Optional.empty(), overrides);
+
+    // one untimed pass, for the JIT, which also counts the parses
+    long parses = 0L;
+    for (Communication c : tokenized)
+      parses += analytic.annotate(c).getRoot().getSectionList().stream()
+          .flatMap(s -> s.getSentenceList().stream())
+          .mapToInt(s -> s.getTokenization().getDependencyParseListSize())
+          .sum();
+
+    Benchmarks.Measurement m = Benchmarks.measure(0, rounds, () -> {
+      long bytes = 0L;
+      for (Communication c : tokenized)
+        bytes += new ArchivableCommunication(analytic.annotate(c).getRoot()).getBytes().length;
+      return bytes;
+    });
+    final long ms = m.getCpuNanos() / 1000000L;
+    final int docs = tokenized.size() * rounds;
+    LOGGER.info("Representations {}: {} CPU ms/document; {} bytes/document; {} dependency parses/document",
+        reps, ms / docs, m.getItems() / docs, parses / tokenized.size());
+  }
+
+  public static void main(String[] args) throws Exception {
+    final int rounds = Benchmarks.intArg(args, 0, 10);
+    Set<DependencyRepresentation> selected = EnumSet.noneOf(DependencyRepresentation.class);
+    for (int i = 1; i < args.length; i++)
+      selected.add(DependencyRepresentation.getEnumeration(args[i]));
+    if (selected.isEmpty())
+      selected.add(DependencyRepresentation.BASIC);
+
+    ConcreteStanfordTokensSentenceAnalytic tokenizer = PipelineLanguage.ENGLISH.getSentenceTokenizationAnalytic();
+    List<Communication> tokenized = new ArrayList<>();
+    for (Communication c : TestCorpora.benchmark(PipelineLanguage.ENGLISH))
+      tokenized.add(tokenizer.annotate(c).getRoot());
+
+    run(tokenized, EnumSet.allOf(DependencyRepresentation.class), rounds);
+    run(tokenized, selected, rounds);
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Scanner;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the time and bytes allocated to remove the markup of a large
+ * Gigaword-style dump with the previous {@link Scanner}-based rewriter,
+ * reproduced here, and with {@link MarkupRewriter}, on a {@link String} and
+ * streaming.
+ * <br>
+ * <br>
+ * The dump is copies of <code>src/test/resources/serif_dateline.sgml</code>.
+ * Run as described in {@link Benchmarks}. Arguments are the number of copies of the document in the dump, and the number of timed rounds.
+ */
+public class MarkupRewriterBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MarkupRewriterBenchmark.class);
+
+  private static final Set<String> LEGACY_TAGS = new HashSet<>();
+  static {
+    LEGACY_TAGS.add("<HEADLINE>");
+    LEGACY_TAGS.add("</HEADLINE>");
+    LEGACY_TAGS.add("<DATELINE>");
+    LEGACY_TAGS.add("</DATELINE>");
+    LEGACY_TAGS.add("<TEXT>");
+    LEGACY_TAGS.add("</TEXT>");
+    LEGACY_TAGS.add("<P>");
+    LEGACY_TAGS.add("</P>");
+    LEGACY_TAGS.add("</DOC>");
+  }
+
+  private static final class CountingWriter extends Writer {
+    int n = 0;
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+      this.n += len;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private static void stringToSpaces(final String toSpace, final StringBuilder toPad) {
+    final int len = toSpace.length();
+    for (int i = 0; i < len; i++)
+      toPad.append(" ");
+  }
+
+  private static int legacy(final String gwText) {
+    StringBuilder newText = new StringBuilder();
+    try (Scanner sc = new Scanner(gwText);) {
+      String fLine = sc.nextLine();
+      stringToSpaces(fLine, newText);
+      newText.append("\n");
+
+      while (sc.hasNextLine()) {
+        final String nLine = sc.nextLine();
+        if (LEGACY_TAGS.contains(nLine))
+          stringToSpaces(nLine, newText);
+        else
+          newText.append(nLine);
+
+        newText.append("\n");
+      }
+    }
+
+    return newText.toString().length();
+  }
+
+  private static int streaming(final String text) throws IOException {
+    CountingWriter w = new CountingWriter();
+    MarkupRewriter.GIGAWORD.rewrite(new StringReader(text), w);
+    return w.n;
+  }
+
+  private static void measure(String name, int rounds, Benchmarks.Round r) throws Exception {
+    // one untimed round, for the JIT
+    Benchmarks.Measurement m = Benchmarks.measure(1, rounds, r);
+    final double mchars = m.getItems() / 1e6d;
+    LOGGER.info("{}: {} ms per million characters; {} bytes allocated per character", name,
+        String.format("%.2f", m.getNanos() / 1e6d / mchars), String.format("%.2f", m.getAllocatedBytes() / (mchars * 1e6d)));
+  }
+
+  public static void main(String[] args) throws Exception {
+    final int copies = Benchmarks.intArg(args, 0, 30000);
+    final int rounds = Benchmarks.intArg(args, 1, 10);
+    final String doc = new String(Files.readAllBytes(Paths.get("src/test/resources/serif_dateline.sgml")), StandardCharsets.UTF_8);
+    StringBuilder sb = new StringBuilder(doc.length() * copies);
+    for (int i = 0; i < copies; i++)
+      sb.append(doc);
+    final String dump = sb.toString();
+    LOGGER.info("Dump of {} characters.", dump.length());
+
+    measure("Scanner", rounds, () -> legacy(dump));
+    measure("MarkupRewriter, String", rounds, () -> MarkupRewriter.removeMarkup(dump).length());
+    measure("MarkupRewriter, streaming", rounds, () -> streaming(dump));
+  }
+}
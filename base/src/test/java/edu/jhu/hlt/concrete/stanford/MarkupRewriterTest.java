@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class MarkupRewriterTest {
+
+  private static final String DOC = "<DOC id=\"TST.0001\" type=\"story\" >\n"
+      + "<HEADLINE>\nDog Bites Man\n</HEADLINE>\n"
+      + "<TEXT>\r\n<P>\r\nJohn <B>was</B> bit.\r\n</P>\r\n</TEXT>\n</DOC>";
+
+  private static String blanks(String s) {
+    char[] cs = new char[s.length()];
+    Arrays.fill(cs, ' ');
+    return new String(cs);
+  }
+
+  private static String expected() {
+    return blanks("<DOC id=\"TST.0001\" type=\"story\" >") + "\n"
+        + blanks("<HEADLINE>") + "\nDog Bites Man\n" + blanks("</HEADLINE>") + "\n"
+        + blanks("<TEXT>") + "\r\n" + blanks("<P>") + "\r\nJohn <B>was</B> bit.\r\n" + blanks("</P>") + "\r\n"
+        + blanks("</TEXT>") + "\n" + blanks("</DOC>");
+  }
+
+  @Test
+  public void blanksTagLinesOnly() {
+    String out = MarkupRewriter.removeMarkup(DOC);
+    assertEquals(DOC.length(), out.length());
+    assertEquals(expected(), out);
+  }
+
+  @Test
+  public void customTagTable() {
+    MarkupRewriter r = new MarkupRewriter(Arrays.asList("B"));
+    assertEquals("   \nx\n    ", r.rewrite("<B>\nx\n</B>"));
+    assertEquals("<P>\n<BR>", r.rewrite("<P>\n<BR>"));
+  }
+
+  @Test
+  public void streamingMatchesString() throws Exception {
+    for (int size : new int[] { 40, 64, MarkupRewriter.BUFFER_SIZE }) {
+      StringWriter w = new StringWriter();
+      MarkupRewriter.GIGAWORD.rewrite(new StringReader(DOC), w, size);
+      assertEquals(expected(), w.toString());
+    }
+  }
+
+  @Test
+  public void streamingCopiesOverlongLines() throws Exception {
+    StringWriter w = new StringWriter();
+    MarkupRewriter.GIGAWORD.rewrite(new StringReader("<P>\n<TEXT>\nx"), w, 4);
+    assertEquals("   \n<TEXT>\nx", w.toString());
+  }
+
+  @Test
+  public void gigawordResource() throws Exception {
+    String text = new String(Files.readAllBytes(Paths.get("src/test/resources/serif_dateline.sgml")), StandardCharsets.UTF_8);
+    StringWriter w = new StringWriter();
+    MarkupRewriter.GIGAWORD.rewrite(new StringReader(text), w);
+    assertEquals(MarkupRewriter.removeMarkup(text), w.toString());
+    assertEquals(text.length(), w.toString().length());
+  }
+}
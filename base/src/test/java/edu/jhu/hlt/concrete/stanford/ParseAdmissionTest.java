@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.Parse;
+import edu.jhu.hlt.concrete.Tokenization;
+import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
+import edu.jhu.hlt.concrete.stanford.languages.ParseFallback;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineProfile;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.trees.Tree;
+
+public class ParseAdmissionTest {
+
+  private static List<CoreLabel> tokens(String... words) {
+    List<CoreLabel> cls = new ArrayList<>();
+    for (String w : words) {
+      CoreLabel cl = new CoreLabel();
+      cl.setWord(w);
+      cl.setValue(w);
+      cl.setTag("NN");
+      cls.add(cl);
+    }
+    return cls;
+  }
+
+  @Test
+  public void flatTree() {
+    Tree t = ParseAdmission.flatTree(tokens("a", "b", "c"));
+    assertEquals(Tree.valueOf("(ROOT (X (NN a) (NN b) (NN c)))"), t);
+  }
+
+  @Test
+  public void rightBranchingTree() {
+    Tree t = ParseAdmission.rightBranchingTree(tokens("a", "b", "c"));
+    assertEquals(Tree.valueOf("(ROOT (X (NN a) (X (NN b) (X (NN c)))))"), t);
+  }
+
+  @Test
+  public void oversizeSentencesGetFallback() throws Exception {
+    Properties overrides = new Properties();
+    overrides.setProperty(PipelineLanguage.MAX_PARSE_LENGTH_PROPERTY, "5");
+    overrides.setProperty(ParseFallback.PROPERTY, ParseFallback.RIGHT_BRANCHING.toString());
+    ConcreteStanfordPreCorefAnalytic analytic = PipelineLanguage.ENGLISH
+        .getPreCorefAnalytic(PipelineProfile.FULL, Optional.empty(), overrides);
+    Communication c = PipelineLanguage.ENGLISH.getSentenceTokenizationAnalytic()
+        .annotate(BasicDepParseTest.getTestCommunication()).getRoot();
+    TokenizedCommunication tc = analytic.annotate(c);
+
+    Tokenization tkz = tc.getTokenizations().get(0);
+    assertEquals(1, tkz.getParseListSize());
+    Parse p = tkz.getParseList().get(0);
+    assertTrue(p.getMetadata().getTool().contains(ParseFallback.RIGHT_BRANCHING.toString()));
+    assertFalse(tkz.isSetDependencyParseList() && tkz.getDependencyParseListSize() > 0);
+    assertEquals(1L, analytic.getStatistics().get("parse.fallback." + ParseFallback.RIGHT_BRANCHING.toString()));
+  }
+
+  @Test
+  public void languageLimitWhenRequested() throws Exception {
+    Properties overrides = new Properties();
+    overrides.setProperty(PipelineLanguage.LANGUAGE_PARSE_LENGTH_PROPERTY, "true");
+    ConcreteStanfordPreCorefAnalytic analytic = PipelineLanguage.ENGLISH
+        .getPreCorefAnalytic(PipelineProfile.FULL, Optional.empty(), overrides);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < PipelineLanguage.ENGLISH.getMaxParseLength(); i++)
+      sb.append("dogs and ");
+    sb.append("cats.");
+    Communication c = PipelineLanguage.ENGLISH.getSentenceTokenizationAnalytic()
+        .annotate(BasicDepParseTest.unsectionedCommunicationFromText(sb.toString())).getRoot();
+    TokenizedCommunication tc = analytic.annotate(c);
+
+    Parse p = tc.getTokenizations().get(0).getParseList().get(0);
+    assertTrue(p.getMetadata().getTool().contains(ParseFallback.FLAT.toString()));
+    assertEquals(1L, analytic.getStatistics().get("parse.fallback." + ParseFallback.FLAT.toString()));
+  }
+}
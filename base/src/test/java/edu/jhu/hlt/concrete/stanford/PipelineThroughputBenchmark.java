@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.analytics.base.Analytic;
+import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
+import edu.jhu.hlt.concrete.stanford.languages.ParserBackend;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineProfile;
+
+/**
+ * Measures documents and tokens per second of the tokenization and pre-coref
+ * analytics over the {@link TestCorpora#benchmark(PipelineLanguage)} corpus of
+ * a language. Run as described in {@link Benchmarks}, e.g. with
+ * <code>-Dexec.args="en balanced 20"</code>.
+ * Arguments are the language, the {@link PipelineProfile}, the number of timed rounds,
+ * and optionally a parser overriding the profile's.
+ */
+public class PipelineThroughputBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PipelineThroughputBenchmark.class);
+
+  private static long annotateAll(List<Communication> corpus, Analytic<? extends TokenizedCommunication> first,
+      Analytic<? extends TokenizedCommunication> second) throws Exception {
+    long tokens = 0L;
+    for (Communication c : corpus) {
+      TokenizedCommunication tc = second.annotate(first.annotate(c).getRoot());
+      tokens += tc.getTokenizations().stream()
+          .mapToInt(tkz -> tkz.getTokenList().getTokenListSize())
+          .sum();
+    }
+    return tokens;
+  }
+
+  public static void main(String[] args) throws Exception {
+    final PipelineLanguage lang = PipelineLanguage.getEnumeration(args.length > 0 ? args[0] : "en");
+    final PipelineProfile profile = args.length > 1 ? PipelineProfile.getEnumeration(args[1]) : PipelineProfile.FULL;
+    final int rounds = Benchmarks.intArg(args, 2, 10);
+    final Optional<ParserBackend> requested = args.length > 3
+        ? Optional.of(ParserBackend.getEnumeration(args[3])) : Optional.empty();
+    final String parser = profile.getParser(lang, requested).map(p -> p.toString()).orElse("(none)");
+
+    List<Communication> corpus = TestCorpora.benchmark(lang);
+    StopWatch sw = new StopWatch();
+    sw.start();
+    ConcreteStanfordTokensSentenceAnalytic tokenizer = lang.getSentenceTokenizationAnalytic();
+    ConcreteStanfordPreCorefAnalytic preCoref = lang.getPreCorefAnalytic(profile, requested);
+    sw.stop();
+    LOGGER.info("Loaded {} pipeline with profile {} and parser {} in {} ms", lang, profile, parser, sw.getTime());
+
+    // one untimed pass, for lazily loaded resources and the JIT
+    Benchmarks.Measurement m = Benchmarks.measure(1, rounds, () -> annotateAll(corpus, tokenizer, preCoref));
+    final long tokens = m.getItems();
+    final int docs = corpus.size() * rounds;
+    final double seconds = m.getSeconds();
+    LOGGER.info("Language: {}; profile: {}; parser: {}; documents: {}; tokens: {}; seconds: {}",
+        lang, profile, parser, docs, tokens, seconds);
+    LOGGER.info("Throughput: {} documents/second; {} tokens/second", docs / seconds, tokens / seconds);
+  }
+}
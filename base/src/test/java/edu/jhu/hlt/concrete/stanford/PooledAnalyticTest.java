@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.analytics.base.Analytic;
+import edu.jhu.hlt.concrete.analytics.base.AnalyticException;
+import edu.jhu.hlt.concrete.miscommunication.tokenized.TokenizedCommunication;
+
+public class PooledAnalyticTest {
+
+  /**
+   * Fails if two threads annotate with it at once.
+   */
+  private static class ExclusiveAnalytic implements Analytic<TokenizedCommunication> {
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger overall;
+    private final AtomicInteger maxOverall;
+
+    ExclusiveAnalytic(AtomicInteger overall, AtomicInteger maxOverall) {
+      this.overall = overall;
+      this.maxOverall = maxOverall;
+    }
+
+    @Override
+    public TokenizedCommunication annotate(Communication c) throws AnalyticException {
+      if (this.running.incrementAndGet() != 1)
+        throw new AnalyticException("annotating on two threads at once");
+      this.maxOverall.accumulateAndGet(this.overall.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(5L);
+      } catch (InterruptedException e) {
+        throw new AnalyticException(e);
+      } finally {
+        this.overall.decrementAndGet();
+        this.running.decrementAndGet();
+      }
+      return null;
+    }
+
+    @Override
+    public long getTimestamp() {
+      return 0L;
+    }
+
+    @Override
+    public String getToolName() {
+      return "exclusive";
+    }
+
+    @Override
+    public String getToolVersion() {
+      return "0";
+    }
+
+    @Override
+    public List<String> getToolNotes() {
+      return new ArrayList<>();
+    }
+  }
+
+  @Test
+  public void neverSharesAnAnalytic() throws Exception {
+    AtomicInteger overall = new AtomicInteger();
+    AtomicInteger maxOverall = new AtomicInteger();
+    PooledAnalytic<TokenizedCommunication> pool = new PooledAnalytic<>(Arrays.asList(
+        new ExclusiveAnalytic(overall, maxOverall), new ExclusiveAnalytic(overall, maxOverall)), 0L);
+    ExecutorService exec = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<TokenizedCommunication>> fs = new ArrayList<>();
+      for (int i = 0; i < 64; i++)
+        fs.add(exec.submit(() -> pool.annotate(new Communication())));
+      for (Future<TokenizedCommunication> f : fs)
+        f.get();
+    } finally {
+      exec.shutdownNow();
+    }
+    assertTrue(maxOverall.get() <= 2);
+    assertEquals(2, pool.getIdle());
+    assertEquals(64L, pool.getStatistics().get("pool.leases"));
+    assertEquals(2L, pool.getStatistics().get("pool.size"));
+  }
+
+  @Test(expected = AnalyticException.class)
+  public void timesOut() throws Exception {
+    PooledAnalytic<TokenizedCommunication> pool = new PooledAnalytic<>(Arrays.asList(
+        new ExclusiveAnalytic(new AtomicInteger(), new AtomicInteger())), 50L);
+    CountDownLatch leased = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService exec = Executors.newSingleThreadExecutor();
+    try {
+      exec.submit(() -> pool.withAnalytic(a -> {
+        leased.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return null;
+      }));
+      assertTrue(leased.await(10L, TimeUnit.SECONDS));
+      pool.annotate(new Communication());
+    } finally {
+      release.countDown();
+      exec.shutdownNow();
+    }
+  }
+}
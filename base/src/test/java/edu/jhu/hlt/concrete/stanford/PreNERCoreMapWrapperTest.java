@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.jhu.hlt.concrete.Constituent;
+import edu.jhu.hlt.concrete.analytics.base.AnalyticException;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.trees.HeadFinder;
+import edu.stanford.nlp.trees.ModCollinsHeadFinder;
+import edu.stanford.nlp.trees.Tree;
+
+public class PreNERCoreMapWrapperTest {
+
+  /**
+   * Picks the rightmost child, without logging a failure for unknown labels.
+   */
+  private static final HeadFinder RIGHTMOST = new HeadFinder() {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Tree determineHead(Tree t) {
+      return t.children()[t.numChildren() - 1];
+    }
+
+    @Override
+    public Tree determineHead(Tree t, Tree parent) {
+      return this.determineHead(t);
+    }
+  };
+
+  @Test
+  public void constituents() throws Exception {
+    Tree t = Tree.valueOf("(ROOT (S (NP (DT the) (NN dog)) (VP (VBD barked))))");
+    List<Constituent> cs = PreNERCoreMapWrapper.constructConstituents(t, 3, new ModCollinsHeadFinder());
+    assertEquals(10, cs.size());
+
+    // pre-order: ROOT S NP DT the NN dog VP VBD barked
+    Constituent root = cs.get(0);
+    assertEquals("ROOT", root.getTag());
+    assertEquals(0, root.getStart());
+    assertEquals(3, root.getEnding());
+    assertEquals(Arrays.asList(1), root.getChildList());
+
+    Constituent s = cs.get(1);
+    assertEquals(Arrays.asList(2, 7), s.getChildList());
+    assertEquals(1, s.getHeadChildIndex());
+
+    Constituent np = cs.get(2);
+    assertEquals("NP", np.getTag());
+    assertEquals(0, np.getStart());
+    assertEquals(2, np.getEnding());
+    assertEquals(1, np.getHeadChildIndex());
+
+    Constituent dog = cs.get(6);
+    assertEquals("dog", dog.getTag());
+    assertEquals(1, dog.getStart());
+    assertEquals(2, dog.getEnding());
+    assertEquals(0, dog.getChildListSize());
+    assertFalse(dog.isSetHeadChildIndex());
+
+    Constituent vp = cs.get(7);
+    assertEquals(2, vp.getStart());
+    assertEquals(3, vp.getEnding());
+  }
+
+  @Test
+  public void deepTree() throws Exception {
+    final int n = 50000;
+    List<CoreLabel> cls = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      CoreLabel cl = new CoreLabel();
+      cl.setWord("w");
+      cl.setValue("w");
+      cl.setTag("NN");
+      cls.add(cl);
+    }
+    List<Constituent> cs = PreNERCoreMapWrapper.constructConstituents(ParseAdmission.rightBranchingTree(cls), n, RIGHTMOST);
+    Constituent last = cs.get(cs.size() - 1);
+    assertEquals(n - 1, last.getStart());
+    assertEquals(n, last.getEnding());
+    assertEquals(n, cs.get(0).getEnding());
+  }
+
+  @Test(expected = AnalyticException.class)
+  public void leafCountMismatch() throws Exception {
+    PreNERCoreMapWrapper.constructConstituents(Tree.valueOf("(ROOT (NP (NN dog)))"), 2, RIGHTMOST);
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.junit.Test;
+
+import edu.jhu.hlt.concrete.Section;
+import edu.jhu.hlt.concrete.TextSpan;
+import edu.jhu.hlt.concrete.uuid.UUIDFactory;
+
+public class SectionFilterTest {
+
+  private static boolean blank(String s) {
+    return SectionFilter.isBlank("x" + s + "x", 1, s.length() + 1);
+  }
+
+  @Test
+  public void blankSpans() {
+    assertTrue(blank(""));
+    assertTrue(blank(" \t\r\n"));
+    assertTrue(blank("\u00a0\u2003\u3000"));
+    assertTrue(blank(" &nbsp; &#160;&#xA0; "));
+    assertTrue(blank("&emsp;&ensp;&thinsp;&hairsp;&NewLine;&MediumSpace;"));
+    assertTrue(blank("&#x2003;&#8201;&#12288;&#10;&#x9;&#x0000A0;"));
+  }
+
+  @Test
+  public void nonBlankSpans() {
+    assertFalse(blank("a"));
+    assertFalse(blank(" &nbsp; . "));
+    assertFalse(blank("&amp;"));
+    assertFalse(blank("&nbsp"));
+    assertFalse(blank("&#65;"));
+    assertFalse(blank("&#x41;"));
+    assertFalse(blank("&#;"));
+    assertFalse(blank("&#x;"));
+    assertFalse(blank("&#+32;"));
+    assertFalse(blank("&#-1;"));
+    assertFalse(blank("&#99999999;"));
+    assertFalse(blank("&emspx;"));
+    assertFalse(blank("&ems;"));
+    assertFalse(blank("&;"));
+  }
+
+  @Test
+  public void skippedKinds() {
+    final String text = "Title\n\nBody text.";
+    Properties props = new Properties();
+    props.setProperty(SectionFilter.SKIP_KINDS_PROPERTY, "metadata, header");
+    SectionFilter f = SectionFilter.fromProperties(props);
+    Section title = new Section(UUIDFactory.newUUID(), "header").setTextSpan(new TextSpan(0, 5));
+    Section body = new Section(UUIDFactory.newUUID(), "Passage").setTextSpan(new TextSpan(7, text.length()));
+    assertFalse(f.accept(title, text, "test"));
+    assertTrue(f.accept(body, text, "test"));
+  }
+}
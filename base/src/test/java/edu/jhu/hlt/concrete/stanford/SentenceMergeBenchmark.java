@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.Section;
+import edu.jhu.hlt.concrete.Sentence;
+import edu.jhu.hlt.concrete.TextSpan;
+import edu.jhu.hlt.concrete.Token;
+import edu.jhu.hlt.concrete.TokenList;
+import edu.jhu.hlt.concrete.Tokenization;
+import edu.jhu.hlt.concrete.TokenizationKind;
+import edu.jhu.hlt.concrete.uuid.UUIDFactory;
+import edu.stanford.nlp.ling.CoreAnnotations.CharacterOffsetBeginAnnotation;
+import edu.stanford.nlp.ling.CoreAnnotations.CharacterOffsetEndAnnotation;
+import edu.stanford.nlp.util.ArrayCoreMap;
+import edu.stanford.nlp.util.CoreMap;
+
+/**
+ * Compares the time to merge annotated sentences back into a long document's
+ * sections by position, with
+ * {@link ConcreteStanfordPreCorefAnalytic#verifyAlignment(List, List)}, and by
+ * the previous lookup of each sentence in a map keyed by {@link TextSpan}.
+ * <br>
+ * <br>
+ * Only the merge is timed; the conversion of each sentence, which both do, is not.
+ * Run as described in {@link Benchmarks}. Arguments are the number of sentences in the document, and the number of timed merges.
+ */
+public class SentenceMergeBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SentenceMergeBenchmark.class);
+
+  private static final int SENTENCES_PER_SECTION = 20;
+  private static final int TOKENS_PER_SENTENCE = 20;
+
+  private static Tokenization tokenization(int start) {
+    TokenList tl = new TokenList();
+    for (int i = 0; i < TOKENS_PER_SENTENCE; i++)
+      tl.addToTokenList(new Token(i).setText("w").setTextSpan(new TextSpan(start + 2 * i, start + 2 * i + 1)));
+    return new Tokenization(UUIDFactory.newUUID(), null, TokenizationKind.TOKEN_LIST).setTokenList(tl);
+  }
+
+  private static Communication document(int n) {
+    Communication c = new Communication().setUuid(UUIDFactory.newUUID()).setId("merge");
+    final int len = 2 * TOKENS_PER_SENTENCE;
+    Section sect = null;
+    for (int i = 0; i < n; i++) {
+      if (i % SENTENCES_PER_SECTION == 0) {
+        sect = new Section(UUIDFactory.newUUID(), "Passage");
+        c.addToSectionList(sect);
+      }
+      sect.addToSentenceList(new Sentence(UUIDFactory.newUUID())
+          .setTextSpan(new TextSpan(i * len, (i + 1) * len))
+          .setTokenization(tokenization(i * len)));
+    }
+    return c;
+  }
+
+  private static List<CoreMap> coreMaps(List<Sentence> sentences) {
+    List<CoreMap> cms = new ArrayList<>(sentences.size());
+    for (Sentence st : sentences) {
+      CoreMap cm = new ArrayCoreMap();
+      cm.set(CharacterOffsetBeginAnnotation.class, st.getTextSpan().getStart());
+      cm.set(CharacterOffsetEndAnnotation.class, st.getTextSpan().getEnding());
+      cms.add(cm);
+    }
+    return cms;
+  }
+
+  private static void legacy(Communication root, List<Sentence> converted) {
+    Map<TextSpan, Sentence> tsToSentenceMap = new HashMap<>();
+    converted.forEach(st -> tsToSentenceMap.put(st.getTextSpan(), st));
+    root.getSectionList().forEach(sect -> sect.getSentenceList().forEach(st -> {
+      TextSpan ts = st.getTextSpan();
+      if (tsToSentenceMap.containsKey(ts))
+        st.setTokenization(tsToSentenceMap.get(ts).getTokenization());
+      else
+        throw new RuntimeException("Didn't find sentence: " + st.getUuid().getUuidString());
+    }));
+  }
+
+  private static void positional(Communication root, List<CoreMap> cms, List<Tokenization> converted) throws Exception {
+    List<Sentence> sentences = ConcreteStanfordPreCorefAnalytic.sentences(root);
+    ConcreteStanfordPreCorefAnalytic.verifyAlignment(cms, sentences);
+    for (int i = 0, n = sentences.size(); i < n; i++)
+      sentences.get(i).setTokenization(converted.get(i));
+  }
+
+  public static void main(String[] args) throws Exception {
+    final int n = Benchmarks.intArg(args, 0, 10000);
+    final int rounds = Benchmarks.intArg(args, 1, 200);
+    Communication root = document(n);
+    // stand-ins for the converted sentences: copies, as the previous merge received
+    List<Sentence> converted = new ArrayList<>(n);
+    List<Tokenization> tokenizations = new ArrayList<>(n);
+    for (Sentence st : ConcreteStanfordPreCorefAnalytic.sentences(root)) {
+      converted.add(new Sentence(st));
+      tokenizations.add(new Tokenization(st.getTokenization()));
+    }
+    List<CoreMap> cms = coreMaps(converted);
+
+    final Benchmarks.Measurement byMap = Benchmarks.measure(rounds, rounds, () -> {
+      legacy(root, converted);
+      return n;
+    });
+    final Benchmarks.Measurement byPosition = Benchmarks.measure(rounds, rounds, () -> {
+      positional(root, cms, tokenizations);
+      return n;
+    });
+    LOGGER.info("{} sentences: map lookup {} us/document; positional {} us/document", n,
+        (long) byMap.getMicrosPerRound(), (long) byPosition.getMicrosPerRound());
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2017 Johns Hopkins University HLTCOE. All rights reserved.
+ * See LICENSE in the project root directory.
+ */
+package edu.jhu.hlt.concrete.stanford;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+import com.nytlabs.corpus.NYTCorpusDocumentParser;
+
+import edu.jhu.hlt.annotatednyt.AnnotatedNYTDocument;
+import edu.jhu.hlt.concrete.Communication;
+import edu.jhu.hlt.concrete.ingesters.annotatednyt.CommunicationizableAnnotatedNYTDocument;
+import edu.jhu.hlt.concrete.ingesters.gigaword.GigawordDocumentConverter;
+import edu.jhu.hlt.concrete.stanford.languages.PipelineLanguage;
+
+/**
+ * A small corpus per language, built from the test fixtures, for tests that
+ * run whole documents through the pipeline; and a larger one for benchmarks.
+ * Paths are relative to the <code>base</code> directory.
+ */
+class TestCorpora {
+
+  private TestCorpora() {
+  }
+
+  /**
+   * @param lang the language of the corpus
+   * @return new copies of the corpus's communications, each with its type set
+   * @throws Exception if a fixture cannot be read
+   */
+  static List<Communication> of(PipelineLanguage lang) throws Exception {
+    List<Communication> comms = new ArrayList<>();
+    switch (lang) {
+    case ENGLISH:
+      comms.add(new GigawordDocumentConverter().fromPath(Paths.get("src/test/resources/serif_dateline.sgml")));
+      comms.add(nyt());
+      comms.add(BasicDepParseTest.getTestCommunication());
+      break;
+    case SPANISH:
+      comms.add(BasicDepParseTest.unsectionedCommunicationFromText(NonPTBSpanishTextTest.text));
+      break;
+    case CHINESE:
+      comms.add(BasicDepParseTest.unsectionedCommunicationFromText(NonPTBChineseTextTest.chineseText1));
+      break;
+    default:
+      throw new IllegalArgumentException("No corpus for language: " + lang.toString());
+    }
+    return withType(comms);
+  }
+
+  /**
+   * The test fixtures, less the Gigaword document, whose ingester is not
+   * needed to run the benchmarks; and the documents, separated by blank lines,
+   * of <code>src/test/resources/corpora/&lt;language&gt;.txt</code>.
+   *
+   * @param lang the language of the corpus
+   * @return new copies of the corpus's communications, each with its type set
+   * @throws Exception if a fixture cannot be read
+   */
+  static List<Communication> benchmark(PipelineLanguage lang) throws Exception {
+    List<Communication> comms = new ArrayList<>();
+    if (lang == PipelineLanguage.ENGLISH) {
+      comms.add(nyt());
+      comms.add(BasicDepParseTest.getTestCommunication());
+    } else {
+      comms.addAll(of(lang));
+    }
+    final String text = new String(Files.readAllBytes(Paths.get("src/test/resources/corpora", lang.toString() + ".txt")),
+        StandardCharsets.UTF_8);
+    for (String doc : text.split("\\n\\s*\\n"))
+      if (!doc.trim().isEmpty())
+        comms.add(BasicDepParseTest.unsectionedCommunicationFromText(doc.trim()));
+    return withType(comms);
+  }
+
+  private static Communication nyt() throws Exception {
+    try (InputStream is = Files.newInputStream(Paths.get("src/test/resources/hopkins-stanford-a-la-nyt.xml"));
+        BufferedInputStream bin = new BufferedInputStream(is, 1024 * 8 * 16);) {
+      byte[] nytdocbytes = IOUtils.toByteArray(bin);
+      return new CommunicationizableAnnotatedNYTDocument(new AnnotatedNYTDocument(new NYTCorpusDocumentParser()
+          .fromByteArray(nytdocbytes, false))).toCommunication();
+    }
+  }
+
+  private static List<Communication> withType(List<Communication> comms) {
+    // type is required to serialize a communication
+    for (Communication c : comms)
+      if (!c.isSetType())
+        c.setType("Other");
+    return comms;
+  }
+}